@@ -0,0 +1,55 @@
+/**
+ * The search algorithms MazeSolver can run.
+ */
+public enum Algorithm {
+    ASTAR("A*", true),
+    GREEDY_ASTAR("Greedy A*", false),
+    DIJKSTRA("Dijkstra", true),
+    DIJKSTRA2("Dijkstra2", true),
+    WEIGHTED_ASTAR("Weighted A*", false),
+    ANYTIME_ASTAR("Anytime A*", false),
+    HPA_STAR("HPA*", false),
+    TREE_PATH("Tree path", true),
+    PARALLEL_BFS("Parallel BFS", true),
+    BITBOARD_BFS("Bitboard BFS", true),
+    FRINGE("Fringe search", true),
+    INCREMENTAL("Incremental LPA*", true),
+    TERRAIN_ASTAR("Terrain A*", true, true),
+    TERRAIN_DIJKSTRA("Terrain Dijkstra", true, true),
+    RACE("Race", false),
+    AUTO("Auto", false);
+
+    private final String label;
+    private final boolean optimal;
+    private final boolean usesCosts;
+
+    /**
+     * @param optimal true if the algorithm always finds a shortest path
+     */
+    Algorithm(String label, boolean optimal) {
+        this(label, optimal, false);
+    }
+
+    /**
+     * @param optimal   true if the algorithm always finds a shortest path
+     * @param usesCosts true if the algorithm finds the cheapest path when the cells have costs, not the shortest
+     */
+    Algorithm(String label, boolean optimal, boolean usesCosts) {
+        this.label = label;
+        this.optimal = optimal;
+        this.usesCosts = usesCosts;
+    }
+
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    public boolean usesCosts() {
+        return usesCosts;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
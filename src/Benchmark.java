@@ -0,0 +1,236 @@
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Measures every algorithm on the bundled mazes and on generated mazes of known shape, printing the statistics of
+ * every maze and the median time and memory allocated per query of every algorithm. The results are used to calibrate
+ * the rules of SolverPlanner.
+ * The memory allocated by every thread during a query is counted, so the workers of the parallel algorithms and the
+ * racers are included. Threads that end during a query take their allocations with them, the pools keep theirs alive.
+ *
+ * Usage: java Benchmark [queries per maze] [maze directory]
+ */
+public class Benchmark {
+
+    private static final long SEED = 20240601L;
+    private static final SearchControl.Budget QUERY_BUDGET = SearchControl.Budget.ofMillis(2_000);
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * @param medianMicros The median time of the queries in microseconds, or -1 if a query ran out of its budget
+     * @param medianBytes  The median memory allocated by a query, or by the query that ran out of its budget
+     */
+    record Measurement(long medianMicros, long medianBytes) {}
+
+    public static void main(String[] args) {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        var directory = new File(args.length > 1 ? args[1] : "resources/mazes");
+
+        var mazes = new LinkedHashMap<String, Cell[][]>();
+        var files = directory.listFiles((dir, name) -> name.endsWith(".jpg") || name.endsWith(".png"));
+        if (files != null) {
+            Arrays.sort(files);
+            var loader = new MazeLoader();
+            for (File file : files)
+                mazes.put(file.getName(), loader.loadMaze(file));
+        }
+        mazes.putAll(generatedMazes());
+
+        var algorithms = benchmarkedAlgorithms();
+        System.out.printf("%-22s", "maze");
+        for (Algorithm algorithm : algorithms)
+            System.out.printf("%17s", algorithm);
+        System.out.printf("%17s%n", "planned");
+
+        warmUp(new MazeSolver(), mazes.values().iterator().next(), algorithms, queries);
+        var solver = new MazeSolver(); // Not the warmed up solver, its cache would answer the measured queries
+        for (var maze : mazes.entrySet()) {
+            long started = System.nanoTime();
+            solver.setMaze(maze.getValue());
+            long preprocessing = System.nanoTime() - started;
+            var pairs = queryPairs(solver, queries, new Random(SEED));
+
+            var measurements = new ArrayList<Measurement>();
+            for (Algorithm algorithm : algorithms)
+                measurements.add(measure(solver, algorithm, pairs));
+            System.out.printf("%-22s", maze.getKey());
+            for (var measurement : measurements)
+                System.out.printf("%17s", formatMicros(measurement.medianMicros()));
+            System.out.printf("%17s%n", solver.plan(SolveOptions.DEFAULT).algorithm());
+            System.out.printf("%-22s", "  allocated per query");
+            for (var measurement : measurements)
+                System.out.printf("%17s", String.format("%,d KB", measurement.medianBytes() / 1024));
+            System.out.printf("%n    %s; preprocessing %,d ms%n", solver.getStatistics(), preprocessing / 1_000_000);
+        }
+    }
+
+    /**
+     * Run every algorithm before measuring, so the first measurements aren't of code that isn't compiled yet.
+     */
+    private static void warmUp(MazeSolver solver, Cell[][] maze, List<Algorithm> algorithms, int queries) {
+        solver.setMaze(maze);
+        var pairs = queryPairs(solver, queries, new Random(SEED));
+        for (int round = 0; round < 3; round++)
+            for (Algorithm algorithm : algorithms)
+                measure(solver, algorithm, pairs);
+    }
+
+    /**
+     * @return The algorithms that are measured, every algorithm except the ones that choose an algorithm themselves
+     */
+    static List<Algorithm> benchmarkedAlgorithms() {
+        var algorithms = new ArrayList<>(List.of(Algorithm.values()));
+        algorithms.removeAll(List.of(Algorithm.RACE, Algorithm.AUTO));
+        return algorithms;
+    }
+
+    /**
+     * Generated mazes of the shapes that are missing from the bundled mazes.
+     *
+     * @return The mazes by name
+     */
+    static Map<String, Cell[][]> generatedMazes() {
+        var mazes = new LinkedHashMap<String, Cell[][]>();
+        mazes.put("perfect-401", braidedMaze(401, 0, new Random(SEED)));
+        mazes.put("braided-401", braidedMaze(401, 0.1, new Random(SEED)));
+        mazes.put("very-braided-401", braidedMaze(401, 0.5, new Random(SEED)));
+        mazes.put("rooms-301", openMaze(301, 0.25, new Random(SEED)));
+        mazes.put("open-301", openMaze(301, 0.05, new Random(SEED)));
+        return mazes;
+    }
+
+    /**
+     * Generate a perfect maze with a randomized depth first search and remove some of its walls to add cycles.
+     *
+     * @param size         Height and width of the maze, odd
+     * @param loopFraction Fraction of the remaining inner walls between two corridors to remove
+     * @param random       Source of the layout
+     * @return The maze
+     */
+    static Cell[][] braidedMaze(int size, double loopFraction, Random random) {
+        var maze = new Cell[size][size];
+        for (Cell[] row : maze)
+            Arrays.fill(row, Cell.WALL);
+
+        var stack = new ArrayDeque<int[]>();
+        maze[1][1] = Cell.TRAVERSABLE;
+        stack.push(new int[]{1, 1});
+        int[][] directions = {{-2, 0}, {2, 0}, {0, -2}, {0, 2}};
+        while (!stack.isEmpty()) {
+            int[] current = stack.peek();
+            var unvisited = new ArrayList<int[]>();
+            for (int[] direction : directions) {
+                int row = current[0] + direction[0];
+                int col = current[1] + direction[1];
+                if (row > 0 && row < size - 1 && col > 0 && col < size - 1 && maze[row][col] == Cell.WALL)
+                    unvisited.add(direction);
+            }
+            if (unvisited.isEmpty()) {
+                stack.pop();
+                continue;
+            }
+            int[] direction = unvisited.get(random.nextInt(unvisited.size()));
+            maze[current[0] + direction[0] / 2][current[1] + direction[1] / 2] = Cell.TRAVERSABLE;
+            maze[current[0] + direction[0]][current[1] + direction[1]] = Cell.TRAVERSABLE;
+            stack.push(new int[]{current[0] + direction[0], current[1] + direction[1]});
+        }
+
+        for (int row = 1; row < size - 1; row++)
+            for (int col = 1; col < size - 1; col++) {
+                boolean between = (row % 2 == 1) != (col % 2 == 1); // A wall between two corridor cells
+                if (between && maze[row][col] == Cell.WALL && random.nextDouble() < loopFraction)
+                    maze[row][col] = Cell.TRAVERSABLE;
+            }
+        return maze;
+    }
+
+    /**
+     * Generate an open maze with randomly placed single cell obstacles.
+     *
+     * @param size        Height and width of the maze
+     * @param wallDensity Probability of a cell being a wall
+     * @param random      Source of the layout
+     * @return The maze
+     */
+    static Cell[][] openMaze(int size, double wallDensity, Random random) {
+        var maze = new Cell[size][size];
+        for (Cell[] row : maze)
+            for (int col = 0; col < size; col++)
+                row[col] = random.nextDouble() < wallDensity ? Cell.WALL : Cell.TRAVERSABLE;
+        return maze;
+    }
+
+    /**
+     * Choose random pairs of connected open cells.
+     *
+     * @return The pairs as arrays of start and goal
+     */
+    static List<Coordinate[]> queryPairs(MazeSolver solver, int count, Random random) {
+        var maze = solver.getMaze();
+        var open = new ArrayList<Coordinate>();
+        for (int row = 0; row < maze.length; row++)
+            for (int col = 0; col < maze[0].length; col++)
+                if (maze[row][col] != Cell.WALL)
+                    open.add(new Coordinate(row, col));
+
+        var pairs = new ArrayList<Coordinate[]>();
+        for (int attempt = 0; pairs.size() < count && attempt < count * 100; attempt++) {
+            var start = open.get(random.nextInt(open.size()));
+            var goal = open.get(random.nextInt(open.size()));
+            if (solver.isConnected(start, goal))
+                pairs.add(new Coordinate[]{start, goal});
+        }
+        return pairs;
+    }
+
+    /**
+     * @return The median time and allocated memory of the queries
+     */
+    static Measurement measure(MazeSolver solver, Algorithm algorithm, List<Coordinate[]> pairs) {
+        var times = new long[pairs.size()];
+        var bytes = new long[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            var control = new SearchControl(QUERY_BUDGET, null);
+            var allocated = allocatedBytes();
+            long started = System.nanoTime();
+            solver.solve(algorithm, pairs.get(i)[0], pairs.get(i)[1], SolveOptions.DEFAULT, control);
+            times[i] = (System.nanoTime() - started) / 1_000;
+            bytes[i] = allocatedSince(allocated);
+            if (control.isStopped())
+                return new Measurement(-1, bytes[i]);
+        }
+        Arrays.sort(times);
+        Arrays.sort(bytes);
+        return new Measurement(times[times.length / 2], bytes[bytes.length / 2]);
+    }
+
+    /**
+     * @return The memory allocated so far by every live thread, by thread id
+     */
+    private static Map<Long, Long> allocatedBytes() {
+        long[] ids = THREADS.getAllThreadIds();
+        long[] bytes = THREADS.getThreadAllocatedBytes(ids);
+        var allocated = new HashMap<Long, Long>();
+        for (int i = 0; i < ids.length; i++)
+            if (bytes[i] >= 0) // -1 if the thread ended meanwhile
+                allocated.put(ids[i], bytes[i]);
+        return allocated;
+    }
+
+    /**
+     * @param before The memory allocated by every thread earlier, see allocatedBytes
+     * @return The memory allocated by every live thread since, including the threads that started since
+     */
+    private static long allocatedSince(Map<Long, Long> before) {
+        long allocated = 0;
+        for (var thread : allocatedBytes().entrySet())
+            allocated += thread.getValue() - before.getOrDefault(thread.getKey(), 0L);
+        return allocated;
+    }
+
+    private static String formatMicros(long micros) {
+        return micros < 0 ? "over budget" : String.format("%,d us", micros);
+    }
+}
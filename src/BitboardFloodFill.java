@@ -0,0 +1,200 @@
+import java.util.Arrays;
+
+/**
+ * Breadth first search on bitboards. Every row of the maze is stored as 64 bit words with a bit set for every open
+ * cell, and the whole wavefront is advanced one step at a time with shifts, ands and ors on the words, so a single
+ * operation moves the wavefront in 64 cells at once.
+ * Only the words the wavefront touches are processed, so a narrow wavefront in a winding maze costs as little as a
+ * wide one in an open maze.
+ */
+public class BitboardFloodFill {
+
+    private static final int UNREACHED = -1;
+
+    private final int rows;
+    private final int cols;
+    private final int words; // Words per row
+    private final long[] open;
+
+    /**
+     * Build the bitboard of the open cells.
+     *
+     * Time complexity: O(nm)
+     * Where n is the height of the maze and m is the width of the maze.
+     *
+     * @param maze The maze to search
+     */
+    public BitboardFloodFill(Cell[][] maze) {
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        this.words = (this.cols + 63) / 64;
+        this.open = new long[this.rows * this.words];
+        for (int row = 0; row < this.rows; row++)
+            for (int col = 0; col < this.cols; col++)
+                if (maze[row][col] != Cell.WALL)
+                    this.open[row * this.words + (col >>> 6)] |= 1L << (col & 63);
+    }
+
+    /**
+     * Update the bit of a cell that was turned into a wall or opened.
+     *
+     * Time complexity: O(1)
+     */
+    public void setOpen(int row, int col, boolean open) {
+        if (open)
+            this.open[row * this.words + (col >>> 6)] |= 1L << (col & 63);
+        else
+            this.open[row * this.words + (col >>> 6)] &= ~(1L << (col & 63));
+    }
+
+    /**
+     * Find a shortest path between two cells. The cells reached at every step are added to the trace as visited,
+     * followed by the path, which is backtracked along decreasing distances.
+     *
+     * Time complexity: O(nm)
+     * Where n is the height of the maze and m is the width of the maze, with 64 cells per word operation.
+     *
+     * @param start   Where to start in the maze
+     * @param goal    Where the goal is in the maze
+     * @param control Cancellation and budget of the search
+     * @return The steps of the search, partial if the search was stopped by the control
+     */
+    public TraceBuffer findPath(Coordinate start, Coordinate goal, SearchControl control) {
+        var trace = new TraceBuffer(this.rows, this.cols, false);
+        int goalIndex = goal.row() * this.cols + goal.col();
+        int[] distance = this.flood(start, goalIndex, trace, control);
+        if (distance == null || distance[goalIndex] == UNREACHED || control.isStopped())
+            return trace;
+
+        var path = new int[distance[goalIndex] + 1];
+        int cell = goalIndex;
+        for (int step = distance[goalIndex]; step >= 0; step--) { // O(p)
+            path[step] = cell;
+            int row = cell / this.cols;
+            int col = cell % this.cols;
+            if (row > 0 && distance[cell - this.cols] == step - 1)
+                cell -= this.cols;
+            else if (row < this.rows - 1 && distance[cell + this.cols] == step - 1)
+                cell += this.cols;
+            else if (col > 0 && distance[cell - 1] == step - 1)
+                cell -= 1;
+            else if (col < this.cols - 1 && distance[cell + 1] == step - 1)
+                cell += 1;
+        }
+        for (int pathCell : path)
+            trace.add(pathCell / this.cols, pathCell % this.cols, Cell.PATH);
+        return trace;
+    }
+
+    /**
+     * Compute the distance from a cell to every cell it can reach.
+     *
+     * Time complexity: O(nm)
+     *
+     * @param source The cell to compute the distances from
+     * @return The distance to every cell indexed by row * cols + col, -1 for walls and cells that can't be reached,
+     * or null if the source is a wall
+     */
+    public int[] distancesFrom(Coordinate source) {
+        return this.flood(source, UNREACHED, null, SearchControl.unbounded());
+    }
+
+    /**
+     * Advance the wavefront from the source until it dies out or reaches the goal.
+     *
+     * @param goalIndex The cell to stop at, UNREACHED to reach every cell
+     * @param trace     Receives the reached cells in order of distance, may be null
+     */
+    private int[] flood(Coordinate source, int goalIndex, TraceBuffer trace, SearchControl control) {
+        int sourceWord = source.row() * this.words + (source.col() >>> 6);
+        long sourceBit = 1L << (source.col() & 63);
+        if ((this.open[sourceWord] & sourceBit) == 0)
+            return null;
+
+        var distance = new int[this.rows * this.cols];
+        Arrays.fill(distance, UNREACHED);
+        var visited = new long[this.open.length];
+        var frontier = new long[this.open.length];
+        var next = new long[this.open.length];
+        var stamps = new int[this.open.length]; // Step a word was last touched at
+        var active = new int[]{sourceWord}; // Words of the frontier
+        int activeCount = 1;
+        var touched = new int[16];
+        visited[sourceWord] = sourceBit;
+        frontier[sourceWord] = sourceBit;
+        distance[source.row() * this.cols + source.col()] = 0;
+        if (trace != null && !control.checkpoint())
+            trace.add(source.row(), source.col(), Cell.VISITED);
+
+        for (int step = 1; activeCount > 0 && (goalIndex == UNREACHED || distance[goalIndex] == UNREACHED); step++) {
+            // Spread every frontier word one cell in every direction, 64 cells at a time
+            if (touched.length < activeCount * 5)
+                touched = new int[activeCount * 10];
+            int touchedCount = 0;
+            for (int i = 0; i < activeCount; i++) {
+                int word = active[i];
+                int column = word % this.words;
+                long current = frontier[word];
+                frontier[word] = 0;
+                long sideways = current << 1 | current >>> 1;
+                touchedCount = this.spread(next, touched, touchedCount, stamps, step, word, sideways);
+                if (column > 0 && (current & 1) != 0) // The first cell moves into the last cell of the previous word
+                    touchedCount = this.spread(next, touched, touchedCount, stamps, step, word - 1, current << 63);
+                if (column < this.words - 1 && current < 0) // The last cell moves into the first cell of the next word
+                    touchedCount = this.spread(next, touched, touchedCount, stamps, step, word + 1, current >>> 63);
+                if (word >= this.words)
+                    touchedCount = this.spread(next, touched, touchedCount, stamps, step, word - this.words, current);
+                if (word < this.open.length - this.words)
+                    touchedCount = this.spread(next, touched, touchedCount, stamps, step, word + this.words, current);
+            }
+
+            // Keep the open cells that weren't visited before as the next frontier
+            int nextCount = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int word = touched[i];
+                long reached = next[word] & this.open[word] & ~visited[word];
+                next[word] = 0;
+                if (reached != 0) {
+                    frontier[word] = reached;
+                    touched[nextCount++] = word; // Never overtakes i, so the touched words can be reused
+                }
+            }
+
+            if (active.length < nextCount)
+                active = new int[nextCount * 2];
+            for (int i = 0; i < nextCount; i++) {
+                int word = touched[i];
+                long reached = frontier[word];
+                visited[word] |= reached;
+                active[i] = word;
+                int row = word / this.words;
+                int colOffset = (word % this.words) * 64;
+                for (long bits = reached; bits != 0; bits &= bits - 1) { // O(reached cells)
+                    int col = colOffset + Long.numberOfTrailingZeros(bits);
+                    distance[row * this.cols + col] = step;
+                    if (trace != null) {
+                        if (control.checkpoint())
+                            return distance;
+                        trace.add(row, col, Cell.VISITED);
+                    }
+                }
+            }
+            activeCount = nextCount;
+        }
+        return distance;
+    }
+
+    /**
+     * Or cells into a word of the next frontier, remembering the word the first time it is touched in a step.
+     *
+     * @return The number of touched words
+     */
+    private int spread(long[] next, int[] touched, int count, int[] stamps, int step, int word, long cells) {
+        next[word] |= cells;
+        if (stamps[word] == step)
+            return count;
+        stamps[word] = step;
+        touched[count] = word;
+        return count + 1;
+    }
+}
@@ -0,0 +1,328 @@
+import java.util.Arrays;
+
+/**
+ * Labels the connected regions of open cells, so whether two cells are connected is a comparison of two labels.
+ * The labels are computed with union-find. A root is always linked below the root with the smaller index, so the
+ * parent of every cell has a smaller index than the cell, and one pass in index order turns the parents into labels.
+ * When a single cell changes the labels are updated around it instead of computed again, the labels then no longer
+ * run from 0 to the number of regions.
+ */
+public class ComponentLabels {
+
+    public static final int NO_COMPONENT = -1;
+
+    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    private final int rows;
+    private final int cols;
+    private final int[] labels;
+    private int componentCount;
+    private int nextLabel; // Label of the next new region
+    private int updateCount; // Updates since the labels were computed, so a view can tell which update it has seen
+    private int[] relabelled = new int[16]; // Cells whose label the last update changed
+    private int relabelledCount;
+
+    /**
+     * A search of the region around a neighbour of a changed cell. The cells it reached are marked in the labels with
+     * its mark until the update is done.
+     */
+    private static class Piece {
+
+        private final int label; // Label of the cells it may enter
+        private final int mark;
+        private int[] queue = new int[16]; // Every reached cell, the cells from head on aren't expanded yet
+        private int head;
+        private int tail;
+
+        Piece(int label, int mark) {
+            this.label = label;
+            this.mark = mark;
+        }
+
+        boolean isSearched() {
+            return this.head == this.tail;
+        }
+
+        void add(int cell) {
+            if (this.tail == this.queue.length)
+                this.queue = Arrays.copyOf(this.queue, this.tail * 2);
+            this.queue[this.tail++] = cell;
+        }
+    }
+
+    private ComponentLabels(int rows, int cols, int[] labels, int componentCount) {
+        this.rows = rows;
+        this.cols = cols;
+        this.labels = labels;
+        this.componentCount = componentCount;
+        this.nextLabel = componentCount;
+    }
+
+    /**
+     * Label the connected regions of a maze.
+     *
+     * Time complexity: O(nm log(nm)), close to O(nm) in practice
+     * Where n is the height of the maze and m is the width of the maze.
+     *
+     * @param maze The maze to label
+     * @return The labels of the maze
+     */
+    public static ComponentLabels compute(Cell[][] maze) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        var parent = new int[rows * cols];
+        for (int row = 0; row < rows; row++) { // O(nm log(nm))
+            for (int col = 0; col < cols; col++) {
+                int cell = row * cols + col;
+                if (maze[row][col] == Cell.WALL) {
+                    parent[cell] = NO_COMPONENT;
+                    continue;
+                }
+                parent[cell] = cell;
+                if (row > 0 && maze[row - 1][col] != Cell.WALL)
+                    union(parent, cell, cell - cols);
+                if (col > 0 && maze[row][col - 1] != Cell.WALL)
+                    union(parent, cell, cell - 1);
+            }
+        }
+
+        // The parent of a cell is labelled before the cell, and has the same label
+        int componentCount = 0;
+        for (int cell = 0; cell < parent.length; cell++) { // O(nm)
+            if (parent[cell] == NO_COMPONENT)
+                continue;
+            parent[cell] = parent[cell] == cell ? componentCount++ : parent[parent[cell]];
+        }
+        return new ComponentLabels(rows, cols, parent, componentCount);
+    }
+
+    /**
+     * Update the labels after a cell of the maze was turned into a wall or an open cell.
+     * The regions around the cell are searched from its open neighbours at the same time, one cell per neighbour in
+     * turn, until all but one of the searches are done. Opening a cell joins its regions, so only the regions that
+     * were searched to the end are labelled again. Closing a cell can split its region, searches that meet are in the
+     * same piece, and only the pieces that were searched to the end get new labels. Either way the largest region is
+     * never searched further than the others.
+     *
+     * Time complexity: O(s) where s is the number of cells in all but the largest of the regions around the cell
+     *
+     * @param maze The maze after the change
+     * @param row  Row of the changed cell
+     * @param col  Column of the changed cell
+     */
+    public void update(Cell[][] maze, int row, int col) {
+        int cell = row * this.cols + col;
+        boolean opened = maze[row][col] != Cell.WALL;
+        int oldLabel = this.labels[cell];
+        this.updateCount++;
+        this.relabelledCount = 0;
+        this.addRelabelled(cell);
+        this.labels[cell] = NO_COMPONENT; // Not entered by the searches
+
+        var pieces = new Piece[4];
+        int pieceCount = 0;
+        for (int[] direction : DIRECTIONS) { // O(4)
+            int neighbourRow = row + direction[0];
+            int neighbourCol = col + direction[1];
+            if (neighbourRow < 0 || neighbourRow >= this.rows || neighbourCol < 0 || neighbourCol >= this.cols
+                    || maze[neighbourRow][neighbourCol] == Cell.WALL)
+                continue;
+            int neighbour = neighbourRow * this.cols + neighbourCol;
+            int label = this.labels[neighbour];
+            if (label < NO_COMPONENT || opened && hasPiece(pieces, pieceCount, label)) // Joined only once
+                continue;
+            var piece = new Piece(label, NO_COMPONENT - 1 - pieceCount);
+            this.labels[neighbour] = piece.mark;
+            piece.add(neighbour);
+            pieces[pieceCount++] = piece;
+        }
+        if (opened && pieceCount <= 1) { // A new region, or the cell joins the region of its neighbours
+            this.labels[cell] = pieceCount == 0 ? this.nextLabel++ : pieces[0].label;
+            this.componentCount += pieceCount == 0 ? 1 : 0;
+            if (pieceCount == 1)
+                this.labels[pieces[0].queue[0]] = pieces[0].label;
+            return;
+        }
+        if (!opened && pieceCount == 0) { // The cell was a region of its own
+            this.componentCount--;
+            return;
+        }
+
+        // When closing a cell the searches that meet are merged into one piece of the region
+        var merged = new int[pieceCount];
+        for (int i = 0; i < pieceCount; i++)
+            merged[i] = i;
+        var unfinishedRoots = new boolean[pieceCount]; // Reused by every round of the searches
+        int unfinished;
+        while ((unfinished = this.unfinishedPieces(pieces, pieceCount, merged, unfinishedRoots)) > 1) { // O(s)
+            for (int i = 0; i < pieceCount; i++) {
+                var piece = pieces[i];
+                if (piece.isSearched())
+                    continue;
+                int current = piece.queue[piece.head++];
+                int currentRow = current / this.cols;
+                int currentCol = current % this.cols;
+                for (int[] direction : DIRECTIONS) { // O(4)
+                    int nextRow = currentRow + direction[0];
+                    int nextCol = currentCol + direction[1];
+                    if (nextRow < 0 || nextRow >= this.rows || nextCol < 0 || nextCol >= this.cols)
+                        continue;
+                    int next = nextRow * this.cols + nextCol;
+                    int label = this.labels[next];
+                    if (label == piece.label) {
+                        this.labels[next] = piece.mark;
+                        piece.add(next);
+                    } else if (label < NO_COMPONENT && label != piece.mark) { // Met another search
+                        merged[root(merged, NO_COMPONENT - 1 - label)] = root(merged, i);
+                    }
+                }
+            }
+        }
+
+        // The pieces that are still searched, or the first if all are done, keep their label
+        int keep = root(merged, 0);
+        for (int i = 0; i < pieceCount; i++)
+            if (!pieces[i].isSearched())
+                keep = root(merged, i);
+        var newLabels = new int[pieceCount];
+        Arrays.fill(newLabels, NO_COMPONENT);
+        int pieceTotal = 0;
+        for (int i = 0; i < pieceCount; i++) {
+            int piece = root(merged, i);
+            if (piece == i)
+                pieceTotal++;
+            if (piece != keep && newLabels[piece] == NO_COMPONENT)
+                newLabels[piece] = opened ? pieces[keep].label : this.nextLabel++;
+        }
+        int keptLabel = opened ? pieces[keep].label : oldLabel;
+        for (int i = 0; i < pieceCount; i++) {
+            int piece = root(merged, i);
+            int label = piece == keep ? keptLabel : newLabels[piece];
+            for (int j = 0; j < pieces[i].tail; j++) {
+                this.labels[pieces[i].queue[j]] = label;
+                if (piece != keep)
+                    this.addRelabelled(pieces[i].queue[j]);
+            }
+        }
+        if (opened) {
+            this.labels[cell] = keptLabel;
+            this.componentCount -= pieceTotal - 1;
+        } else {
+            this.componentCount += pieceTotal - 1;
+        }
+    }
+
+    private void addRelabelled(int cell) {
+        if (this.relabelledCount == this.relabelled.length)
+            this.relabelled = Arrays.copyOf(this.relabelled, this.relabelledCount * 2);
+        this.relabelled[this.relabelledCount++] = cell;
+    }
+
+    private static boolean hasPiece(Piece[] pieces, int pieceCount, int label) {
+        for (int i = 0; i < pieceCount; i++)
+            if (pieces[i].label == label)
+                return true;
+        return false;
+    }
+
+    /**
+     * @param unfinished Scratch space of at least pieceCount flags, cleared before it is used
+     * @return The number of pieces with a search that isn't done
+     */
+    private int unfinishedPieces(Piece[] pieces, int pieceCount, int[] merged, boolean[] unfinished) {
+        Arrays.fill(unfinished, 0, pieceCount, false);
+        int count = 0;
+        for (int i = 0; i < pieceCount; i++) {
+            int piece = root(merged, i);
+            if (!pieces[i].isSearched() && !unfinished[piece]) {
+                unfinished[piece] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int root(int[] merged, int piece) {
+        while (merged[piece] != piece)
+            piece = merged[piece];
+        return piece;
+    }
+
+    /**
+     * Time complexity: O(1)
+     *
+     * @return true if there is a path between the cells
+     */
+    public boolean isConnected(Coordinate first, Coordinate second) {
+        int label = this.getLabel(first);
+        return label != NO_COMPONENT && label == this.getLabel(second);
+    }
+
+    /**
+     * @return The label of the region a cell belongs to, NO_COMPONENT for walls
+     */
+    public int getLabel(Coordinate cell) {
+        return this.labels[cell.row() * this.cols + cell.col()];
+    }
+
+    public int getLabel(int row, int col) {
+        return this.labels[row * this.cols + col];
+    }
+
+    /**
+     * @return Number of updates since the labels were computed
+     */
+    public int getUpdateCount() {
+        return this.updateCount;
+    }
+
+    /**
+     * @return Number of cells whose label the last update changed, the changed cell included
+     */
+    public int getRelabelledCount() {
+        return this.relabelledCount;
+    }
+
+    /**
+     * @return The index, row * cols + col, of a cell whose label the last update changed
+     */
+    public int getRelabelled(int index) {
+        return this.relabelled[index];
+    }
+
+    public int getComponentCount() {
+        return this.componentCount;
+    }
+
+    /**
+     * @return Bytes used by the labels
+     */
+    public long memoryBytes() {
+        return (long) this.labels.length * Integer.BYTES;
+    }
+
+    /**
+     * Merge the regions of two cells, linking the root with the larger index below the other.
+     *
+     * Time complexity: O(log(nm)) amortized
+     */
+    private static void union(int[] parent, int first, int second) {
+        int firstRoot = find(parent, first);
+        int secondRoot = find(parent, second);
+        if (firstRoot < secondRoot)
+            parent[secondRoot] = firstRoot;
+        else if (secondRoot < firstRoot)
+            parent[firstRoot] = secondRoot;
+    }
+
+    /**
+     * Find the root of a cell, halving the path to it on the way.
+     */
+    private static int find(int[] parent, int cell) {
+        while (parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+}
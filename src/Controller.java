@@ -1,13 +1,19 @@
 import javax.swing.*;
-import java.util.Queue;
+import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.ExecutionException;
 
-public record Controller(Gui gui, MazeLoader loader, MazeSolver solver) {
+public record Controller(Gui gui, MazeLoader loader, MazeSolver solver, SolverExecutor executor) {
 
     public Controller(Gui gui, MazeLoader loader, MazeSolver solver) {
+        this(gui, loader, solver, new SolverExecutor(solver));
+    }
+
+    public Controller(Gui gui, MazeLoader loader, MazeSolver solver, SolverExecutor executor) {
         this.gui = gui;
         this.loader = loader;
         this.solver = solver;
+        this.executor = executor;
         this.setButtonListeners();
     }
 
@@ -15,88 +21,169 @@ public record Controller(Gui gui, MazeLoader loader, MazeSolver solver) {
         this.gui.setSelectButtonListener(
                 (event) -> this.gui.filePicker(
                         (file) -> {
-                            var maze = this.loader.loadMaze(file);
-                            this.solver.setMaze(maze);
-                            this.gui.displayMaze(this.solver.getMaze());
+                            this.loadMaze(file, this.gui.isGrayCostsSelected());
                             return null;
                         }
                 ));
 
-        this.gui.setAstarButtonListener((event) -> {
-            SwingWorker<Queue<MazeTraversalStep>, Void> worker = new SwingWorker<>() {
-                @Override
-                protected Queue<MazeTraversalStep> doInBackground() {
-                    return solver.aStar(gui.getStartCoordinate(), gui.getFinishCoordinate(), false);
-                }
-
-                @Override
-                protected void done() {
-                    processDoneTask(this);
-                }
-            };
-
-            worker.execute();
+        this.gui.setAstarButtonListener((event) -> this.solve(Algorithm.ASTAR));
+        this.gui.setGreedyAstarButtonListener((event) -> this.solve(Algorithm.GREEDY_ASTAR));
+        this.gui.setDijkstraButtonListener((event) -> this.solve(Algorithm.DIJKSTRA));
+        this.gui.setDijkstraButton2Listener((event) -> this.solve(Algorithm.DIJKSTRA2));
+        this.gui.setSolveButtonListener((event) -> this.solve(this.gui.getSelectedAlgorithm()));
+
+        this.gui.setWallEditListener((cell) -> {
+            this.executor.cancelAndWait(); // The maze is changed in place
+            this.solver.setWall(cell, this.solver.getMaze()[cell.row()][cell.col()] != Cell.WALL);
+            this.gui.showWallChange(cell, this.solver.getComponents());
+            this.gui.showSolveStatus(String.format("(%d, %d) %s, %s repairs its last search, the preprocessing of "
+                    + "the other algorithms is rebuilt by their next solve", cell.row(), cell.col(),
+                    this.solver.getMaze()[cell.row()][cell.col()] == Cell.WALL ? "walled" : "opened",
+                    Algorithm.INCREMENTAL));
         });
 
-
-        this.gui.setGreedyAstarButtonListener((event) -> {
-            SwingWorker<Queue<MazeTraversalStep>, Void> worker = new SwingWorker<>() {
-                @Override
-                protected Queue<MazeTraversalStep> doInBackground() {
-                    return solver.aStar(gui.getStartCoordinate(), gui.getFinishCoordinate(), true);
-                }
-
-                @Override
-                protected void done() {
-                    processDoneTask(this);
-                }
-            };
-
-            worker.execute();
+        this.gui.setResetMazeButtonListener((event) -> {
+            this.executor.cancel();
+            this.gui.showSolveStatus("");
+            this.gui.resetMaze();
         });
 
-        this.gui.setDijkstraButtonListener((event) -> {
-            SwingWorker<Queue<MazeTraversalStep>, Void> worker = new SwingWorker<>() {
-                @Override
-                protected Queue<MazeTraversalStep> doInBackground() {
-                    return solver.dijkstra1(gui.getStartCoordinate(), gui.getFinishCoordinate());
+        this.gui.setSaveTraceButtonListener((event) -> this.gui.traceFilePicker(true,
+                (file) -> {
+                    try {
+                        this.gui.getReplayedTrace().writeTo(file);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        this.gui.showError("Could not save the trace: " + e.getMessage());
+                    }
+                    return null;
                 }
-
-                @Override
-                protected void done() {
-                    processDoneTask(this);
+        ));
+
+        this.gui.setLoadTraceButtonListener((event) -> this.gui.traceFilePicker(false,
+                (file) -> {
+                    try {
+                        var trace = TraceBuffer.readFrom(file);
+                        if (this.gui.fitsDisplayedMaze(trace))
+                            this.gui.replaySearchProcedure(trace);
+                        else
+                            this.gui.showError("The trace was recorded on a maze of a different size");
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        this.gui.showError("Could not load the trace: " + e.getMessage());
+                    }
+                    return null;
                 }
-            };
-
-            worker.execute();
-        });
+        ));
+    }
 
-        this.gui.setDijkstraButton2Listener((event) -> {
-            SwingWorker<Queue<MazeTraversalStep>, Void> worker = new SwingWorker<>() {
-                @Override
-                protected Queue<MazeTraversalStep> doInBackground() {
-                    return solver.dijkstra2(gui.getStartCoordinate(), gui.getFinishCoordinate());
+    /**
+     * Load and preprocess a maze in the background behind the loading dialog, with every button disabled until the
+     * maze is displayed.
+     *
+     * @param file      The maze image
+     * @param grayCosts Use the gray levels of the image as the costs of the cells
+     */
+    private void loadMaze(File file, boolean grayCosts) {
+        this.executor.cancel();
+        this.gui.showLoading();
+        var dialog = this.gui.createDialog("Loading");
+        var worker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                executor.cancelAndWait(); // A cancelled solve may still read the maze until its next checkpoint
+                if (grayCosts) {
+                    var weighted = loader.loadWeightedMaze(file);
+                    solver.setMaze(weighted.maze(), weighted.costs());
+                } else {
+                    solver.setMaze(loader.loadMaze(file));
                 }
-
-                @Override
-                protected void done() {
-                    processDoneTask(this);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                dialog.dialog().dispose();
+                dialog.timer().stop();
+                try {
+                    this.get();
+                    gui.displayMaze(solver.getMaze());
+                    gui.setComponentLabels(solver.getComponents());
+                    showPreprocessingStatus();
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                    gui.resetMaze();
+                    gui.showError("Could not load the maze: " + e.getCause());
                 }
-            };
+            }
+        };
 
-            worker.execute();
-        });
+        worker.execute();
+        dialog.dialog().setVisible(true);
+    }
 
-        this.gui.setResetMazeButtonListener((event) -> this.gui.resetMaze());
+    private void showPreprocessingStatus() {
+        var landmarks = this.solver.getLandmarks();
+        var hierarchy = this.solver.getHierarchy();
+        var treeIndex = this.solver.getTreeIndex();
+        if (landmarks != null)
+            this.gui.showSolveStatus(String.format("%d regions; %d landmarks, %,d KB; %d clusters, %d entrances; %s",
+                    this.solver.getComponents().getComponentCount(),
+                    landmarks.getLandmarkCount(), landmarks.memoryBytes() / 1024,
+                    hierarchy.getClusterCount(), hierarchy.getEntranceCount(),
+                    treeIndex != null ? String.format("perfect maze, %,d KB", treeIndex.memoryBytes() / 1024)
+                            : "has loops"));
     }
 
-    private void processDoneTask(SwingWorker<Queue<MazeTraversalStep>, Void> worker) {
-        try {
-            Queue<MazeTraversalStep> path = worker.get();
-            gui.replaySearchProcedure(path);
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+    /**
+     * Solve the maze between the selected start and finish, superseding any solve that is still running.
+     *
+     * @param algorithm The algorithm to solve with
+     */
+    private void solve(Algorithm algorithm) {
+        if (!this.solver.isConnected(this.gui.getStartCoordinate(), this.gui.getFinishCoordinate())) {
+            this.executor.cancel();
+            this.gui.showSolveStatus("No path, the start and finish are in separate regions of the maze");
+            return;
         }
+        this.gui.showSolveStatus(algorithm + ": solving...");
+        this.executor.submit(algorithm, this.gui.getStartCoordinate(), this.gui.getFinishCoordinate(),
+                this.gui.getSolveOptions(), this.gui.getSolveBudget(), new SolverExecutor.SolveListener() {
+                    @Override
+                    public void progress(long expandedNodes) {
+                        gui.showSolveStatus(String.format("%s: %,d nodes expanded...", algorithm, expandedNodes));
+                    }
+
+                    @Override
+                    public void improved(int pathCost, double epsilon) {
+                        gui.showSolveStatus(epsilon <= 1
+                                ? String.format("%s: optimal path of length %d", algorithm, pathCost)
+                                : String.format("%s: path of length %d, at most %.2f times optimal...",
+                                        algorithm, pathCost, epsilon));
+                    }
+
+                    @Override
+                    public void done(TraceBuffer trace, SearchControl control) {
+                        // The status of the last improved path of anytime A* is kept, cached results have none
+                        if (algorithm != Algorithm.ANYTIME_ASTAR || control.isStopped()
+                                || control.getSummary() != null)
+                            gui.showSolveStatus(control.isStopped()
+                                    ? String.format("%s: stopped (%s) after %,d nodes, showing best result so far",
+                                            algorithm, control.getStopReason(), control.getExpandedNodes())
+                                    : String.format("%s: %,d nodes expanded%s%s, %d pooled workspaces %,d KB",
+                                            algorithm, control.getExpandedNodes(), filledStatus(),
+                                            control.getSummary() != null ? ", " + control.getSummary() : "",
+                                            SearchWorkspace.pooledCount(), SearchWorkspace.pooledBytes() / 1024));
+                        gui.replaySearchProcedure(trace);
+                    }
+                });
+    }
+
+    private String filledStatus() {
+        if (!this.gui.getSolveOptions().fillDeadEnds())
+            return "";
+        var filled = this.solver.fillDeadEnds(this.gui.getStartCoordinate(), this.gui.getFinishCoordinate());
+        return String.format(", %,d dead end cells filled", filled.filledCells());
     }
 
 }
@@ -0,0 +1,146 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Dead-end filling. A cell with a single open neighbour, other than the endpoints, can't be on a path between the
+ * endpoints, so it is filled, which may turn its neighbour into a dead end too. What is left are the cells on a path
+ * between the endpoints and the cycles connected to it.
+ * Every cell counts its open neighbours. Filling a cell decrements the counts of its neighbours and the thread that
+ * decrements a count to one fills that cell, so every cell is filled at most once and the row bands of the maze can be
+ * filled in parallel. The result is the same in whatever order the cells are filled.
+ */
+public class DeadEndFilter {
+
+    private static final int BAND_ROWS = 64; // Rows per parallel task
+
+    private final Cell[][] maze;
+    private final int rows;
+    private final int cols;
+    private final AtomicIntegerArray openNeighbours;
+    private final boolean[] filled; // Each cell is written by at most one thread
+    private final int pinnedFirst;
+    private final int pinnedSecond;
+    private final AtomicLong filledCells = new AtomicLong();
+
+    private DeadEndFilter(Cell[][] maze, Coordinate first, Coordinate second) {
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        this.openNeighbours = new AtomicIntegerArray(this.rows * this.cols);
+        this.filled = new boolean[this.rows * this.cols];
+        this.pinnedFirst = first.row() * this.cols + first.col();
+        this.pinnedSecond = second.row() * this.cols + second.col();
+    }
+
+    /**
+     * Fill the dead ends of a maze.
+     *
+     * Time complexity: O(nm)
+     * Where n is the height of the maze and m is the width of the maze.
+     *
+     * @param maze  The maze to fill, not modified
+     * @param start Endpoint that is never filled
+     * @param goal  Endpoint that is never filled
+     * @return A copy of the maze where the filled cells are walls, and the number of filled cells
+     */
+    public static Result fill(Cell[][] maze, Coordinate start, Coordinate goal) {
+        var filter = new DeadEndFilter(maze, start, goal);
+        var pruned = new Cell[filter.rows][];
+        int bands = (filter.rows + BAND_ROWS - 1) / BAND_ROWS;
+
+        // The dead ends are collected before any cell is filled, later dead ends are found by the decrements
+        int[][] deadEnds = IntStream.range(0, bands).parallel()
+                .mapToObj(filter::countNeighbours).toArray(int[][]::new); // O(nm / cores)
+        IntStream.range(0, bands).parallel().forEach(band -> filter.fillBand(deadEnds[band])); // O(nm / cores)
+        IntStream.range(0, bands).parallel().forEach(band -> filter.copyBand(band, pruned)); // O(nm / cores)
+        return new Result(pruned, filter.filledCells.get());
+    }
+
+    /**
+     * @param maze        The maze with the filled cells as walls
+     * @param filledCells Number of filled cells
+     */
+    public record Result(Cell[][] maze, long filledCells) {
+    }
+
+    /**
+     * Count the open neighbours of the cells in a band.
+     *
+     * @return The cells of the band that are dead ends
+     */
+    private int[] countNeighbours(int band) {
+        var deadEnds = new int[64];
+        int size = 0;
+        for (int row = band * BAND_ROWS; row < Math.min(this.rows, (band + 1) * BAND_ROWS); row++) {
+            for (int col = 0; col < this.cols; col++) {
+                if (this.maze[row][col] == Cell.WALL)
+                    continue;
+                int count = 0;
+                if (row > 0 && this.maze[row - 1][col] != Cell.WALL)
+                    count++;
+                if (row < this.rows - 1 && this.maze[row + 1][col] != Cell.WALL)
+                    count++;
+                if (col > 0 && this.maze[row][col - 1] != Cell.WALL)
+                    count++;
+                if (col < this.cols - 1 && this.maze[row][col + 1] != Cell.WALL)
+                    count++;
+                this.openNeighbours.set(row * this.cols + col, count);
+                if (count <= 1 && this.isFillable(row * this.cols + col)) {
+                    if (size == deadEnds.length)
+                        deadEnds = Arrays.copyOf(deadEnds, size * 2);
+                    deadEnds[size++] = row * this.cols + col;
+                }
+            }
+        }
+        return Arrays.copyOf(deadEnds, size);
+    }
+
+    /**
+     * Fill the dead ends of a band, following the corridors into other bands.
+     */
+    private void fillBand(int[] deadEnds) {
+        var worklist = deadEnds;
+        int size = deadEnds.length;
+        long filledCount = 0;
+
+        while (size > 0) {
+            int current = worklist[--size];
+            this.filled[current] = true;
+            filledCount++;
+            int row = current / this.cols;
+            int col = current % this.cols;
+            for (int i = 0; i < 4; i++) {
+                int neighbour = switch (i) {
+                    case 0 -> row > 0 ? current - this.cols : -1;
+                    case 1 -> row < this.rows - 1 ? current + this.cols : -1;
+                    case 2 -> col > 0 ? current - 1 : -1;
+                    default -> col < this.cols - 1 ? current + 1 : -1;
+                };
+                if (neighbour < 0 || this.maze[neighbour / this.cols][neighbour % this.cols] == Cell.WALL)
+                    continue;
+                // Only the decrement to exactly one makes the neighbour a new dead end, so it is pushed once
+                if (this.openNeighbours.decrementAndGet(neighbour) == 1 && this.isFillable(neighbour)) {
+                    if (size == worklist.length)
+                        worklist = Arrays.copyOf(worklist, Math.max(64, size * 2));
+                    worklist[size++] = neighbour;
+                }
+            }
+        }
+        this.filledCells.addAndGet(filledCount);
+    }
+
+    private boolean isFillable(int cell) {
+        return cell != this.pinnedFirst && cell != this.pinnedSecond;
+    }
+
+    private void copyBand(int band, Cell[][] pruned) {
+        for (int row = band * BAND_ROWS; row < Math.min(this.rows, (band + 1) * BAND_ROWS); row++) {
+            pruned[row] = this.maze[row].clone();
+            for (int col = 0; col < this.cols; col++)
+                if (this.filled[row * this.cols + col])
+                    pruned[row][col] = Cell.WALL;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+import java.util.Arrays;
+
+/**
+ * A shortest path search whose memory is fixed by the size of the maze, for mazes where the open list and the maps
+ * of A* would take gigabytes.
+ * Fringe search keeps the cells to expand in one linked list and walks it again and again, every walk expands the
+ * cells whose cost plus the manhattan distance is within a threshold, and raises the threshold to the smallest
+ * estimate above it. Unlike IDA* the cost of every reached cell is kept, so a cell is only expanded again when it is
+ * reached with a lower cost. There is no priority queue and no map, the state of a cell is its cost, its links in the
+ * list and a byte of flags, 13 bytes per cell no matter how the search goes.
+ * The paths are as short as the paths of A*, some cells are expanded more than once.
+ */
+public class FringeSearch {
+
+    private static final int NIL = -1;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    // Layout of the flags of a cell
+    private static final int DIRECTION_MASK = 0b11; // Direction to the parent: up, down, left, right
+    private static final int HAS_PARENT = 0b100;
+    private static final int IN_FRINGE = 0b1000;
+    private static final int EXPANDED = 0b10000;
+
+    private final Cell[][] maze;
+    private final int rows;
+    private final int cols;
+
+    /**
+     * @param maze The maze to search
+     */
+    public FringeSearch(Cell[][] maze) {
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+    }
+
+    /**
+     * @return Bytes of search state of a search in the maze, allocated once per search
+     */
+    public long memoryBytes() {
+        return (long) this.rows * this.cols * (3 * Integer.BYTES + 1);
+    }
+
+    /**
+     * Find a shortest path. Every cell is added to the trace as visited the first time it is expanded, followed by
+     * the path from the start to the goal. The number of walks over the fringe and of cells that were expanded again
+     * is set as the summary of the control.
+     *
+     * Time complexity: Worst case = O(N^2), typically O(N) walks over a fringe much smaller than N
+     * Where N is the number of open cells.
+     *
+     * @param start   Where to start in the maze
+     * @param goal    Where the goal is in the maze
+     * @param control Cancellation and budget of the search
+     * @return The steps of the search, partial if the search was stopped by the control
+     */
+    public TraceBuffer findPath(Coordinate start, Coordinate goal, SearchControl control) {
+        var trace = new TraceBuffer(this.rows, this.cols, false);
+        int cellCount = this.rows * this.cols;
+        var costs = new int[cellCount];
+        var next = new int[cellCount]; // Links of the fringe list
+        var previous = new int[cellCount];
+        var flags = new byte[cellCount];
+        Arrays.fill(costs, UNREACHED);
+        int startCell = start.row() * this.cols + start.col();
+        int goalCell = goal.row() * this.cols + goal.col();
+        costs[startCell] = 0;
+        flags[startCell] = IN_FRINGE;
+        next[startCell] = NIL;
+        previous[startCell] = NIL;
+        int head = startCell;
+        int threshold = this.estimate(startCell, goal);
+        int walks = 0;
+        long reexpansions = 0;
+
+        while (head != NIL) {
+            walks++;
+            int nextThreshold = UNREACHED;
+            int cell = head;
+            while (cell != NIL) { // O(F) per walk, where F is the size of the fringe
+                int estimate = costs[cell] + this.estimate(cell, goal);
+                if (estimate > threshold) {
+                    nextThreshold = Math.min(nextThreshold, estimate);
+                    cell = next[cell];
+                    continue;
+                }
+                if (control.checkpoint())
+                    return trace;
+                int row = cell / this.cols;
+                int col = cell % this.cols;
+                if ((flags[cell] & EXPANDED) == 0)
+                    trace.add(row, col, Cell.VISITED);
+                else
+                    reexpansions++;
+                flags[cell] |= EXPANDED;
+                if (cell == goalCell) {
+                    this.addPath(goalCell, costs[goalCell], flags, trace);
+                    control.setSummary(String.format("%,d walks over the fringe, %,d cells expanded again", walks,
+                            reexpansions));
+                    return trace;
+                }
+
+                // The neighbours are inserted right after the cell, so they are looked at next in this walk
+                for (int direction = 3; direction >= 0; direction--) { // O(4)
+                    int neighbourRow = row + (direction == 0 ? -1 : direction == 1 ? 1 : 0);
+                    int neighbourCol = col + (direction == 2 ? -1 : direction == 3 ? 1 : 0);
+                    if (neighbourRow < 0 || neighbourRow >= this.rows || neighbourCol < 0 || neighbourCol >= this.cols
+                            || this.maze[neighbourRow][neighbourCol] == Cell.WALL)
+                        continue;
+                    int neighbour = neighbourRow * this.cols + neighbourCol;
+                    if (costs[cell] + 1 >= costs[neighbour])
+                        continue;
+                    costs[neighbour] = costs[cell] + 1;
+                    if ((flags[neighbour] & IN_FRINGE) != 0)
+                        head = unlink(neighbour, head, next, previous);
+                    flags[neighbour] = (byte) (flags[neighbour] & EXPANDED | IN_FRINGE | HAS_PARENT | direction ^ 1);
+                    // Insert after the cell
+                    next[neighbour] = next[cell];
+                    previous[neighbour] = cell;
+                    if (next[cell] != NIL)
+                        previous[next[cell]] = neighbour;
+                    next[cell] = neighbour;
+                }
+
+                int following = next[cell];
+                head = unlink(cell, head, next, previous);
+                flags[cell] &= ~IN_FRINGE;
+                cell = following;
+            }
+            threshold = nextThreshold;
+        }
+        return trace;
+    }
+
+    /**
+     * Remove a cell from the fringe.
+     *
+     * @return The head of the fringe afterwards
+     */
+    private static int unlink(int cell, int head, int[] next, int[] previous) {
+        if (previous[cell] != NIL)
+            next[previous[cell]] = next[cell];
+        if (next[cell] != NIL)
+            previous[next[cell]] = previous[cell];
+        return cell == head ? next[cell] : head;
+    }
+
+    private int estimate(int cell, Coordinate goal) {
+        return Math.abs(cell / this.cols - goal.row()) + Math.abs(cell % this.cols - goal.col());
+    }
+
+    private void addPath(int goalCell, int cost, byte[] flags, TraceBuffer trace) {
+        var path = new int[cost + 1];
+        int cell = goalCell;
+        for (int step = cost; step >= 0; step--) { // O(p)
+            path[step] = cell;
+            if ((flags[cell] & HAS_PARENT) == 0)
+                break;
+            cell += switch (flags[cell] & DIRECTION_MASK) {
+                case 0 -> -this.cols;
+                case 1 -> this.cols;
+                case 2 -> -1;
+                default -> 1;
+            };
+        }
+        for (int pathCell : path)
+            trace.add(pathCell / this.cols, pathCell % this.cols, Cell.PATH);
+    }
+}
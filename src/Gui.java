@@ -2,12 +2,11 @@ import javax.swing.*;
 import javax.swing.Timer;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
-import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.util.List;
-import java.util.Queue;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public class Gui extends JFrame {
@@ -15,74 +14,97 @@ public class Gui extends JFrame {
     private final Dimension frameSize;
     private JPanel buttonPanel;
     private JPanel stepsPanel;
-    private JPanel mazePanel;
+    private MazeViewport mazeViewport;
     private JButton selectButton;
+    private JCheckBox grayCostsCheckBox;
+    private JCheckBox editWallsCheckBox;
     private JButton aStarButton;
     private JButton greedyAstarButton;
     private JButton dijkstraButton;
     private JButton dijkstraButton2;
     private JButton resetMazeButton;
+    private JButton saveTraceButton;
+    private JButton loadTraceButton;
+    private JButton pauseReplayButton;
+    private JButton stepReplayButton;
+    private JButton skipReplayButton;
+    private JComboBox<ReplayEngine.Speed> replaySpeedSelector;
+    private JSlider replaySeekSlider;
+    private boolean updatingSeekSlider;
+    private ReplayEngine replayEngine;
+    private TraceBuffer replayedTrace;
+    private JComboBox<Algorithm> algorithmSelector;
+    private JButton solveButton;
+    private JSpinner epsilonSpinner;
+    private JCheckBox fillDeadEndsCheckBox;
+    private JCheckBox requireOptimalCheckBox;
+    private JComboBox<SearchControl.Budget> solveBudgetSelector;
+    private JLabel solveStatusLabel;
     private JLabel traversalStepsLabel;
     private JLabel traversalStepsCounter;
     private int traversalSteps;
     private Cell[][] unsolvedMaze;
-    private JButton[][] graphicalMaze;
-    private final Map<JButton, Coordinate> buttonCoordinateMap = new HashMap<>();
-    private final List<Coordinate> changedCells;
-    private JButton startButton;
-    private JButton finishButton;
+    private ComponentLabels componentLabels;
+    private Coordinate startCoordinate;
+    private Coordinate finishCoordinate;
     private State currentState;
-    private final ActionListener cellButtonListener = new ActionListener() {
+    private Consumer<Coordinate> wallEditListener;
+    private final Consumer<Coordinate> cellClickListener = new Consumer<>() {
         @Override
-        public void actionPerformed(ActionEvent e) {
+        public void accept(Coordinate cell) {
 
-                JButton button = (JButton) e.getSource();
-                Coordinate buttonCoordinate = buttonCoordinateMap.get(button);
-                int row = buttonCoordinate.row();
-                int col = buttonCoordinate.col();
+                if (editWallsCheckBox.isSelected()) {
+                    if (wallEditListener != null && !cell.equals(startCoordinate) && !cell.equals(finishCoordinate))
+                        wallEditListener.accept(cell);
+                    return;
+                }
+
+                if (unsolvedMaze[cell.row()][cell.col()] == Cell.WALL)
+                    return;
 
                 switch (currentState) {
                     case NONE_SELECTED -> {
-                        button.setBackground(translateStateToColor(Cell.START));
-                        changedCells.add(new Coordinate(row, col));
-                        startButton = button;
+                        mazeViewport.setCell(cell, Cell.START);
+                        startCoordinate = cell;
                         currentState = Gui.State.START_SELECTED;
+                        mazeViewport.setReachableFrom(componentLabels, startCoordinate);
                     }
                     case START_SELECTED -> {
-                        if (button == startButton) {
-                            button.setBackground(translateStateToColor(Cell.TRAVERSABLE));
-                            startButton = null;
+                        if (cell.equals(startCoordinate)) {
+                            mazeViewport.setCell(cell, Cell.TRAVERSABLE);
+                            startCoordinate = null;
                             currentState = Gui.State.NONE_SELECTED;
+                            mazeViewport.setReachableFrom(componentLabels, null);
                         } else {
-                            changedCells.add(new Coordinate(row, col));
-                            button.setBackground(translateStateToColor(Cell.FINISH));
-                            finishButton = button;
+                            mazeViewport.setCell(cell, Cell.FINISH);
+                            finishCoordinate = cell;
                             currentState = Gui.State.BOTH_SELECTED;
                             setButtonStates(true, selectButton);
                         }
                     }
                     case FINISH_SELECTED -> {
-                        if (button == finishButton) {
-                            button.setBackground(translateStateToColor(Cell.TRAVERSABLE));
-                            finishButton = null;
+                        if (cell.equals(finishCoordinate)) {
+                            mazeViewport.setCell(cell, Cell.TRAVERSABLE);
+                            finishCoordinate = null;
                             currentState = Gui.State.NONE_SELECTED;
                         } else {
-                            changedCells.add(new Coordinate(row, col));
-                            button.setBackground(translateStateToColor(Cell.START));
-                            startButton = button;
+                            mazeViewport.setCell(cell, Cell.START);
+                            startCoordinate = cell;
                             currentState = Gui.State.BOTH_SELECTED;
+                            mazeViewport.setReachableFrom(componentLabels, startCoordinate);
                             setButtonStates(true, selectButton);
                         }
                     }
                     case BOTH_SELECTED -> {
-                        if (button == startButton) {
-                            button.setBackground(translateStateToColor(Cell.TRAVERSABLE));
-                            startButton = null;
+                        if (cell.equals(startCoordinate)) {
+                            mazeViewport.setCell(cell, Cell.TRAVERSABLE);
+                            startCoordinate = null;
                             currentState = Gui.State.FINISH_SELECTED;
+                            mazeViewport.setReachableFrom(componentLabels, null);
                             setButtonStates(false, selectButton);
-                        } else if (button == finishButton) {
-                            button.setBackground(translateStateToColor(Cell.TRAVERSABLE));
-                            finishButton = null;
+                        } else if (cell.equals(finishCoordinate)) {
+                            mazeViewport.setCell(cell, Cell.TRAVERSABLE);
+                            finishCoordinate = null;
                             currentState = Gui.State.START_SELECTED;
                             setButtonStates(false, selectButton);
                         }
@@ -97,10 +119,8 @@ public class Gui extends JFrame {
 
     Gui(final Dimension frameSize) {
         this.frameSize = frameSize;
-        this.graphicalMaze = null;
         this.currentState = State.NONE_SELECTED;
         this.traversalSteps = 0;
-        this.changedCells = new ArrayList<>();
         this.initFrame();
         this.initPanels();
         this.initComponents();
@@ -114,15 +134,8 @@ public class Gui extends JFrame {
     }
 
     private void initPanels() {
-        final Dimension thisFrameSize = this.frameSize;
-        this.mazePanel = new JPanel() {
-            private final Dimension frameSize = thisFrameSize;
-
-            @Override
-            public Dimension getPreferredSize() {
-                return new Dimension(frameSize.width, frameSize.height);
-            }
-        };
+        this.mazeViewport = new MazeViewport(this.frameSize);
+        this.mazeViewport.setCellClickListener(this.cellClickListener);
         this.buttonPanel = new JPanel();
         this.buttonPanel.setLayout(new FlowLayout());
         this.stepsPanel = new JPanel();
@@ -130,33 +143,131 @@ public class Gui extends JFrame {
 
     private void initComponents() {
         this.selectButton = new JButton("Select Maze");
+        this.grayCostsCheckBox = new JCheckBox("Gray costs");
+        this.grayCostsCheckBox.setToolTipText("Load the gray levels of the next maze as the cost of the cells");
         this.aStarButton = new JButton("A*");
         this.greedyAstarButton = new JButton("Greedy A*");
         this.dijkstraButton = new JButton("Dijkstra");
         this.dijkstraButton2 = new JButton("Dijkstra2");
         this.resetMazeButton = new JButton("Reset Maze");
+        this.editWallsCheckBox = new JCheckBox("Edit walls");
+        this.editWallsCheckBox.setToolTipText("Clicking a cell turns it into a wall or opens it");
+        this.saveTraceButton = new JButton("Save Trace");
+        this.loadTraceButton = new JButton("Load Trace");
 
         this.traversalStepsLabel = new JLabel("Steps: ");
         this.traversalStepsCounter = new JLabel(String.valueOf(this.traversalSteps));
 
+        this.algorithmSelector = new JComboBox<>(Algorithm.values());
+        this.algorithmSelector.setSelectedItem(Algorithm.AUTO);
+        this.solveButton = new JButton("Solve");
+        this.epsilonSpinner = new JSpinner(new SpinnerNumberModel(SolveOptions.DEFAULT.epsilon(), 1.0, 10.0, 0.25));
+        this.epsilonSpinner.setToolTipText("Epsilon of weighted and anytime A*");
+        this.fillDeadEndsCheckBox = new JCheckBox("Fill dead ends");
+        this.fillDeadEndsCheckBox.setToolTipText("Fill the dead ends between start and finish before solving");
+        this.requireOptimalCheckBox = new JCheckBox("Optimal only", SolveOptions.DEFAULT.requireOptimal());
+        this.requireOptimalCheckBox.setToolTipText("Only race algorithms that find the shortest path");
+        this.solveBudgetSelector = new JComboBox<>(new SearchControl.Budget[]{
+                SearchControl.Budget.UNLIMITED,
+                SearchControl.Budget.ofMillis(100),
+                SearchControl.Budget.ofMillis(1_000),
+                SearchControl.Budget.ofMillis(10_000),
+                SearchControl.Budget.ofNodes(10_000),
+                SearchControl.Budget.ofNodes(1_000_000)
+        });
+        this.solveStatusLabel = new JLabel();
+
+        this.initReplayComponents();
         this.setButtonStates(false, null);
         this.selectButton.setEnabled(true);
     }
 
+    private void initReplayComponents() {
+        this.replayEngine = new ReplayEngine(this.mazeViewport, this::repaintMaze, new ReplayEngine.ReplayListener() {
+            @Override
+            public void progress(int position, int total, int countedSteps) {
+                setStepsCounter(countedSteps);
+                updatingSeekSlider = true;
+                replaySeekSlider.setMaximum(total);
+                replaySeekSlider.setValue(position);
+                updatingSeekSlider = false;
+            }
+
+            @Override
+            public void finished() {
+                pauseReplayButton.setText("Pause");
+                setButtonStates(true, null);
+            }
+        });
+
+        this.pauseReplayButton = new JButton("Pause");
+        this.pauseReplayButton.addActionListener((event) -> {
+            if (this.replayEngine.isPlaying()) {
+                this.replayEngine.pause();
+                this.pauseReplayButton.setText("Resume");
+            } else {
+                this.pauseReplayButton.setText("Pause");
+                this.replayEngine.resume();
+            }
+        });
+        this.stepReplayButton = new JButton("Step");
+        this.stepReplayButton.addActionListener((event) -> {
+            this.replayEngine.step();
+            this.pauseReplayButton.setText("Resume");
+        });
+        this.skipReplayButton = new JButton("Skip");
+        this.skipReplayButton.addActionListener((event) -> this.replayEngine.skipToEnd());
+
+        this.replaySpeedSelector = new JComboBox<>(new ReplayEngine.Speed[]{
+                ReplayEngine.Speed.ofFitToSeconds(2),
+                ReplayEngine.Speed.ofFitToSeconds(5),
+                ReplayEngine.Speed.ofFitToSeconds(10),
+                ReplayEngine.Speed.ofStepsPerSecond(100),
+                ReplayEngine.Speed.ofStepsPerSecond(1_000),
+                ReplayEngine.Speed.ofStepsPerSecond(10_000)
+        });
+        this.replaySpeedSelector.setSelectedIndex(1);
+        this.replaySpeedSelector.addActionListener((event) ->
+                this.replayEngine.setSpeed((ReplayEngine.Speed) this.replaySpeedSelector.getSelectedItem()));
+
+        this.replaySeekSlider = new JSlider(0, 0, 0);
+        this.replaySeekSlider.addChangeListener((event) -> {
+            if (!this.updatingSeekSlider)
+                this.replayEngine.seek(this.replaySeekSlider.getValue());
+        });
+        this.setReplayControlStates(false);
+    }
+
     private void build() {
         this.buttonPanel.add(this.selectButton);
+        this.buttonPanel.add(this.grayCostsCheckBox);
         this.buttonPanel.add(this.resetMazeButton);
+        this.buttonPanel.add(this.editWallsCheckBox);
         this.buttonPanel.add(this.aStarButton);
         this.buttonPanel.add(this.greedyAstarButton);
         this.buttonPanel.add(this.dijkstraButton);
         this.buttonPanel.add(this.dijkstraButton2);
+        this.buttonPanel.add(this.algorithmSelector);
+        this.buttonPanel.add(this.epsilonSpinner);
+        this.buttonPanel.add(this.fillDeadEndsCheckBox);
+        this.buttonPanel.add(this.requireOptimalCheckBox);
+        this.buttonPanel.add(this.solveButton);
+        this.buttonPanel.add(this.solveBudgetSelector);
+        this.buttonPanel.add(this.saveTraceButton);
+        this.buttonPanel.add(this.loadTraceButton);
 
         this.stepsPanel.add(this.traversalStepsLabel);
         this.stepsPanel.add(this.traversalStepsCounter);
+        this.stepsPanel.add(this.pauseReplayButton);
+        this.stepsPanel.add(this.stepReplayButton);
+        this.stepsPanel.add(this.skipReplayButton);
+        this.stepsPanel.add(this.replaySpeedSelector);
+        this.stepsPanel.add(this.replaySeekSlider);
+        this.stepsPanel.add(this.solveStatusLabel);
 
         this.add(this.buttonPanel, BorderLayout.NORTH);
         this.add(this.stepsPanel, BorderLayout.CENTER);
-        this.add(this.mazePanel, BorderLayout.SOUTH);
+        this.add(this.mazeViewport, BorderLayout.SOUTH);
     }
 
     public void setSelectButtonListener(ActionListener listener) {
@@ -179,97 +290,132 @@ public class Gui extends JFrame {
         this.dijkstraButton2.addActionListener(listener);
     }
 
+    /**
+     * @param listener Called with the clicked cell while walls are edited, never with the start or finish
+     */
+    public void setWallEditListener(Consumer<Coordinate> listener) {
+        this.wallEditListener = listener;
+    }
+
     public void setResetMazeButtonListener(ActionListener listener) {
         this.resetMazeButton.addActionListener(listener);
     }
 
+    public void setSolveButtonListener(ActionListener listener) {
+        this.solveButton.addActionListener(listener);
+    }
+
+    public void setSaveTraceButtonListener(ActionListener listener) {
+        this.saveTraceButton.addActionListener(listener);
+    }
+
+    public void setLoadTraceButtonListener(ActionListener listener) {
+        this.loadTraceButton.addActionListener(listener);
+    }
+
     public Coordinate getStartCoordinate() {
-        return buttonCoordinateMap.get(this.startButton);
+        return this.startCoordinate;
     }
 
     public Coordinate getFinishCoordinate() {
-        return buttonCoordinateMap.get(this.finishButton);
+        return this.finishCoordinate;
     }
 
-    public void resetMaze() {
-        SwingWorker<Void, JButton> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() {
-                repaintMaze();
-                restoreState();
-                resetStepsCounter();
-                return null;
-            }
+    /**
+     * @return true if the gray levels of the selected maze are loaded as costs
+     */
+    public boolean isGrayCostsSelected() {
+        return this.grayCostsCheckBox.isSelected();
+    }
 
-            @Override
-            protected void done() {
-                mazePanel.validate();
-                mazePanel.repaint();
-            }
-        };
+    public Algorithm getSelectedAlgorithm() {
+        return (Algorithm) this.algorithmSelector.getSelectedItem();
+    }
 
-        worker.execute();
+    public SolveOptions getSolveOptions() {
+        return SolveOptions.DEFAULT.withEpsilon((Double) this.epsilonSpinner.getValue())
+                .withFillDeadEnds(this.fillDeadEndsCheckBox.isSelected())
+                .withRequireOptimal(this.requireOptimalCheckBox.isSelected());
+    }
+
+    public SearchControl.Budget getSolveBudget() {
+        return (SearchControl.Budget) this.solveBudgetSelector.getSelectedItem();
+    }
+
+    public void showSolveStatus(String status) {
+        this.solveStatusLabel.setText(status);
+    }
+
+    public TraceBuffer getReplayedTrace() {
+        return this.replayedTrace;
+    }
+
+    /**
+     * Check if a trace was recorded on a maze with the same dimensions as the displayed maze.
+     *
+     * @param trace The trace to check
+     * @return true if the trace can be replayed on the displayed maze
+     */
+    public boolean fitsDisplayedMaze(TraceBuffer trace) {
+        return this.unsolvedMaze != null
+                && trace.getRows() == this.unsolvedMaze.length && trace.getCols() == this.unsolvedMaze[0].length;
+    }
+
+    public void showError(String message) {
+        JOptionPane.showMessageDialog(this, message, "Maze Solver", JOptionPane.ERROR_MESSAGE);
+    }
+
+    public void resetMaze() {
+        this.repaintMaze();
+        this.restoreState();
     }
 
     private void restoreState() {
+        this.replayEngine.pause();
+        this.setReplayControlStates(false);
         this.currentState = State.NONE_SELECTED;
-        this.startButton = null;
-        this.finishButton = null;
+        this.startCoordinate = null;
+        this.finishCoordinate = null;
+        this.mazeViewport.setReachableFrom(this.componentLabels, null);
         this.resetStepsCounter();
         this.setButtonStates(false, this.selectButton);
-        this.changedCells.clear();
     }
 
-    public void displayMaze(Cell[][] maze) {
-        var dialog = this.createDialog("Loading");
-        var worker = new SwingWorker<Void, JButton>() {
-            @Override
-            protected Void doInBackground() {
-                dialog.timer().start();
-
-                restoreState();
-                mazePanel.removeAll();
-                mazePanel.setLayout(new GridLayout(maze.length, maze[0].length));
-                graphicalMaze = new JButton[maze.length][maze[0].length];
-
-                for (int row = 0; row < maze.length; row++)
-                    for (int col = 0; col < maze[0].length; col++) {
-                        var button = new JButton();
-                        button.setBackground(translateStateToColor(maze[row][col]));
-                        button.setBorderPainted(false);
-                        button.setContentAreaFilled(true);
-
-                        if (maze[row][col] == Cell.WALL)
-                            button.setEnabled(false);
-                        else
-                            button.addActionListener(cellButtonListener);
-
-                        graphicalMaze[row][col] = button;
-                        buttonCoordinateMap.put(button, new Coordinate(row, col));
-                        publish(button);
-                    }
-
-                unsolvedMaze = maze;
-                return null;
-            }
+    /**
+     * @param componentLabels The connected regions of the displayed maze, used to grey out the cells that can't be
+     *                        reached from the selected start
+     */
+    public void setComponentLabels(ComponentLabels componentLabels) {
+        this.componentLabels = componentLabels;
+    }
 
-            @Override
-            protected void process(List<JButton> buttons) {
-                for (JButton button : buttons)
-                    mazePanel.add(button);
-            }
+    /**
+     * Show a cell of the displayed maze that was turned into a wall or opened.
+     *
+     * @param cell            The changed cell
+     * @param componentLabels The connected regions of the maze after the change
+     */
+    public void showWallChange(Coordinate cell, ComponentLabels componentLabels) {
+        this.componentLabels = componentLabels;
+        this.mazeViewport.refreshCell(cell);
+        this.mazeViewport.setReachableFrom(componentLabels, this.startCoordinate);
+    }
 
-            @Override
-            protected void done() {
-                dialog.dialog().dispose();
-                dialog.timer().stop();
-                mazePanel.validate();
-                mazePanel.repaint();
-            }
-        };
+    /**
+     * Disable every button and stop the replay while a maze is loaded in the background, displayMaze enables them
+     * again.
+     */
+    public void showLoading() {
+        this.replayEngine.pause();
+        this.setReplayControlStates(false);
+        this.setButtonStates(false, null);
+    }
 
-        worker.execute();
-        dialog.dialog().setVisible(true);
+    public void displayMaze(Cell[][] maze) {
+        this.unsolvedMaze = maze;
+        this.componentLabels = null;
+        this.restoreState();
+        this.mazeViewport.setMaze(maze); // Tiles are rendered lazily when painted, so this returns immediately
     }
 
     public AnimatedDialog createDialog(String message) {
@@ -293,21 +439,7 @@ public class Gui extends JFrame {
     }
 
     private void repaintMaze() {
-        for (Coordinate changedCell : this.changedCells)
-                this.graphicalMaze[changedCell.row()][changedCell.col()].setBackground(
-                        translateStateToColor(this.unsolvedMaze[changedCell.row()][changedCell.col()]));
-    }
-
-    private static Color translateStateToColor(Cell cell) {
-        return switch (cell) {
-            case TRAVERSABLE -> Color.WHITE;
-            case WALL -> Color.BLACK;
-            case DEAD_END -> Color.RED;
-            case VISITED -> Color.BLUE;
-            case PATH -> Color.GREEN;
-            case START -> Color.ORANGE;
-            case FINISH -> Color.CYAN;
-        };
+        this.mazeViewport.resetOverlay();
     }
 
     private void setButtonStates(Boolean value, JButton exception) {
@@ -321,8 +453,21 @@ public class Gui extends JFrame {
             this.dijkstraButton.setEnabled(value);
         if (!(this.dijkstraButton2 == exception))
             this.dijkstraButton2.setEnabled(value);
+        if (!(this.solveButton == exception))
+            this.solveButton.setEnabled(value);
         if (!(this.resetMazeButton == exception))
             this.resetMazeButton.setEnabled(value);
+        if (!(this.saveTraceButton == exception))
+            this.saveTraceButton.setEnabled(value && this.replayedTrace != null);
+        if (!(this.loadTraceButton == exception)) // A trace can be loaded whenever a maze is displayed and not replaying
+            this.loadTraceButton.setEnabled(value || (this.unsolvedMaze != null && this.selectButton == exception));
+    }
+
+    private void setReplayControlStates(boolean value) {
+        this.pauseReplayButton.setEnabled(value);
+        this.stepReplayButton.setEnabled(value);
+        this.skipReplayButton.setEnabled(value);
+        this.replaySeekSlider.setEnabled(value);
     }
 
     public void filePicker(Function<File, Void> callback) {
@@ -334,42 +479,21 @@ public class Gui extends JFrame {
             callback.apply(new File(picker.getSelectedFile().getAbsolutePath()));
     }
 
-    public void replaySearchProcedure(Queue<MazeTraversalStep> steps) {
-        var worker = new SwingWorker<Void, MazeTraversalStep>() {
-            @Override
-            protected Void doInBackground() {
-                repaintMaze();
-                resetStepsCounter();
-                setButtonStates(false, null);
-
-                for (MazeTraversalStep step : steps) {
-                        publish(step);     // Send the step to the process method
-                    try {
-                        Thread.sleep(Math.max(1, 10 - (steps.size() / 1000)));
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt(); // Restore the interrupted status
-                    }
-                }
-                return null;
-            }
-
-            @Override
-            protected void process(List<MazeTraversalStep> chunks) {
-                for (MazeTraversalStep step : chunks) {
-                    graphicalMaze[step.getLocation().row()][step.getLocation().col()].setBackground(translateStateToColor(step.getState()));
-                    changedCells.add(step.getLocation());
-                    if (step.getState() != Cell.PATH || step.getParentLocation() != null)
-                        incrementStepsCounter();
-                }
-            }
+    public void traceFilePicker(boolean save, Function<File, Void> callback) {
+        var picker = new JFileChooser();
+        picker.setFileFilter(new FileNameExtensionFilter("Maze traces", "trace"));
 
-            @Override
-            protected void done() {
-                setButtonStates(true, null);
-            }
-        };
+        int result = save ? picker.showSaveDialog(this) : picker.showOpenDialog(this);
+        if (result == JFileChooser.APPROVE_OPTION)
+            callback.apply(new File(picker.getSelectedFile().getAbsolutePath()));
+    }
 
-        worker.execute();
+    public void replaySearchProcedure(TraceBuffer steps) {
+        this.replayedTrace = steps;
+        this.resetStepsCounter();
+        this.setButtonStates(false, null);
+        this.setReplayControlStates(true);
+        this.replayEngine.play(steps);
     }
 
     private void resetStepsCounter() {
@@ -377,8 +501,8 @@ public class Gui extends JFrame {
         this.traversalStepsCounter.setText(String.valueOf(this.traversalSteps));
     }
 
-    private void incrementStepsCounter() {
-        this.traversalSteps++;
+    private void setStepsCounter(int traversalSteps) {
+        this.traversalSteps = traversalSteps;
         this.traversalStepsCounter.setText(String.valueOf(this.traversalSteps));
     }
 }
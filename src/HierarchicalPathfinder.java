@@ -0,0 +1,501 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Hierarchical path-finding A* (HPA*).
+ * The maze is split into square clusters. Where open cells meet across the border of two clusters an entrance is
+ * placed, and the distances between the entrances of every cluster are precomputed. A query searches the small
+ * abstract graph of entrances and only refines the clusters on the chosen route into cells, so its cost depends on
+ * the length of the route rather than the size of the maze.
+ * The entrances are numbered across the maze, so the abstract search runs on the primitive arrays of a SearchWorkspace.
+ * Every entrance also keeps the direction towards it from every cell of its cluster, so a route is refined by walking
+ * the directions instead of searching the clusters again. Only the clusters of the start and the goal are searched
+ * by a query.
+ * The paths are near optimal, usually within a few percent of the shortest path.
+ */
+public class HierarchicalPathfinder {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    private static final int LONG_ENTRANCE = 6; // Entrances longer than this get a transition at both ends
+    private static final int UNREACHABLE = -1;
+    private static final int RIGHT = 0;
+    private static final int DOWN = 1;
+    // Directions towards an entrance, in the order of the offsets of searchCluster
+    private static final byte AT_TARGET = 4;
+    private static final byte NO_DIRECTION = -1;
+
+    private final Cell[][] maze;
+    private final int rows;
+    private final int cols;
+    private final int clusterSize;
+    private final int clusterRows;
+    private final int clusterCols;
+    private final long[] fingerprints;
+    private final int[][] borderPairs; // Per cluster and direction: cell pairs (inside, outside) crossing the border
+    private final Cluster[] clusters;
+    private final int[] entranceBase; // Number of the first entrance of every cluster, then the number of entrances
+    private int[] entranceCells; // Cell index of every entrance by number
+    private int[] crossingOffsets; // Crossings of entrance i are crossingEntrances[crossingOffsets[i]...[i + 1]]
+    private int[] crossingEntrances; // Numbers of the entrances of the neighbouring clusters every entrance crosses to
+
+    /**
+     * The entrances of a cluster and the distances between them.
+     *
+     * @param entrances Cell indices of the entrances
+     * @param distances Distance between every pair of entrances inside the cluster, UNREACHABLE if there is no path
+     * @param crossings Cells in neighbouring clusters every entrance connects to
+     * @param towards   Per entrance, the direction towards it from every cell of the cluster indexed by localIndex
+     */
+    private record Cluster(int[] entrances, int[][] distances, int[][] crossings, byte[][] towards) {}
+
+    private HierarchicalPathfinder(Cell[][] maze, int clusterSize) {
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        this.clusterSize = clusterSize;
+        this.clusterRows = (this.rows + clusterSize - 1) / clusterSize;
+        this.clusterCols = (this.cols + clusterSize - 1) / clusterSize;
+        this.fingerprints = new long[this.clusterRows * this.clusterCols];
+        this.borderPairs = new int[this.clusterRows * this.clusterCols * 2][];
+        this.clusters = new Cluster[this.clusterRows * this.clusterCols];
+        this.entranceBase = new int[this.clusters.length + 1];
+    }
+
+    /**
+     * Build the abstraction of a maze. If the previous abstraction has the same dimensions, only the clusters whose
+     * cells changed, and the clusters next to them, are rebuilt.
+     *
+     * Time complexity: O(nm) to compare the clusters, O(c s^2 e) to rebuild
+     * Where n is the height of the maze, m is the width of the maze, c is the number of rebuilt clusters,
+     * s is the cluster size and e is the number of entrances per cluster.
+     *
+     * @param maze        The maze to build the abstraction of
+     * @param clusterSize Width and height of a cluster
+     * @param previous    The abstraction of the previous maze, or null
+     * @return The abstraction of the maze
+     */
+    public static HierarchicalPathfinder build(Cell[][] maze, int clusterSize, HierarchicalPathfinder previous) {
+        var hierarchy = new HierarchicalPathfinder(maze, clusterSize);
+        int clusterCount = hierarchy.clusters.length;
+        IntStream.range(0, clusterCount).parallel()
+                .forEach(cluster -> hierarchy.fingerprints[cluster] = hierarchy.fingerprint(cluster));
+
+        var changed = new boolean[clusterCount];
+        boolean reusable = previous != null && previous.rows == hierarchy.rows && previous.cols == hierarchy.cols
+                && previous.clusterSize == clusterSize;
+        for (int cluster = 0; cluster < clusterCount; cluster++)
+            changed[cluster] = !reusable || previous.fingerprints[cluster] != hierarchy.fingerprints[cluster];
+
+        // The borders of a changed cluster, and the entrances of its neighbours, have to be rebuilt
+        var affected = changed.clone();
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            if (!changed[cluster])
+                continue;
+            for (int neighbour : hierarchy.neighbourClusters(cluster))
+                affected[neighbour] = true;
+        }
+
+        IntStream.range(0, clusterCount).parallel().forEach(cluster -> {
+            for (int direction = RIGHT; direction <= DOWN; direction++) {
+                int border = cluster * 2 + direction;
+                int neighbour = hierarchy.neighbourCluster(cluster, direction);
+                boolean rebuild = changed[cluster] || (neighbour >= 0 && changed[neighbour]);
+                hierarchy.borderPairs[border] = rebuild ? hierarchy.findEntrances(cluster, direction)
+                        : previous.borderPairs[border];
+            }
+        });
+        IntStream.range(0, clusterCount).parallel().forEach(cluster -> hierarchy.clusters[cluster] =
+                affected[cluster] ? hierarchy.buildCluster(cluster) : previous.clusters[cluster]);
+        hierarchy.numberEntrances();
+
+        return hierarchy;
+    }
+
+    /**
+     * Number the entrances of all clusters and link every entrance to the entrances it crosses to.
+     *
+     * Time complexity: O(E log e)
+     * Where E is the number of entrances and e is the number of entrances per cluster.
+     */
+    private void numberEntrances() {
+        for (int cluster = 0; cluster < this.clusters.length; cluster++) // O(c)
+            this.entranceBase[cluster + 1] = this.entranceBase[cluster] + this.clusters[cluster].entrances().length;
+        int entranceCount = this.entranceBase[this.clusters.length];
+        this.entranceCells = new int[entranceCount];
+        this.crossingOffsets = new int[entranceCount + 1];
+        for (int cluster = 0; cluster < this.clusters.length; cluster++) { // O(E)
+            var crossings = this.clusters[cluster].crossings();
+            for (int i = 0; i < crossings.length; i++) {
+                int entrance = this.entranceBase[cluster] + i;
+                this.entranceCells[entrance] = this.clusters[cluster].entrances()[i];
+                this.crossingOffsets[entrance + 1] = this.crossingOffsets[entrance] + crossings[i].length;
+            }
+        }
+        this.crossingEntrances = new int[this.crossingOffsets[entranceCount]];
+        int next = 0;
+        for (var cluster : this.clusters) // O(E log e)
+            for (int[] crossing : cluster.crossings())
+                for (int cell : crossing)
+                    this.crossingEntrances[next++] = this.entranceNumber(cell);
+    }
+
+    /**
+     * @return The number of the entrance at a cell, or a negative number if the cell isn't an entrance
+     */
+    private int entranceNumber(int cell) {
+        int cluster = this.clusterOf(cell);
+        int entrance = Arrays.binarySearch(this.clusters[cluster].entrances(), cell);
+        return entrance < 0 ? entrance : this.entranceBase[cluster] + entrance;
+    }
+
+    /**
+     * Find a path between two cells.
+     *
+     * Time complexity: O(a (e + log a) + p + s^2)
+     * Where a is the number of abstract nodes searched, e is the number of entrances per cluster, p is the length of
+     * the path and s is the cluster size.
+     *
+     * @param start   Where to start in the maze
+     * @param goal    Where the goal is in the maze
+     * @param control Cancellation and budget of the search, one node is counted per expanded entrance
+     * @return The expanded entrances as visited cells followed by the path, only the expanded entrances if no path
+     * was found
+     */
+    public TraceBuffer findPath(Coordinate start, Coordinate goal, SearchControl control) {
+        var trace = new TraceBuffer(this.rows, this.cols, false);
+        int startIndex = start.row() * this.cols + start.col();
+        int goalIndex = goal.row() * this.cols + goal.col();
+        int startCluster = this.clusterOf(startIndex);
+        int goalCluster = this.clusterOf(goalIndex);
+
+        // Connect start and goal to the entrances of their clusters
+        var fromStart = new int[this.clusterSize * this.clusterSize];
+        var toGoal = new int[this.clusterSize * this.clusterSize];
+        var towardsGoal = new byte[this.clusterSize * this.clusterSize];
+        this.searchCluster(startCluster, startIndex, fromStart, null);
+        this.searchCluster(goalCluster, goalIndex, toGoal, towardsGoal);
+
+        // The nodes of the abstract graph are the entrances by number, then the start and the goal
+        int entranceCount = this.entranceBase[this.clusters.length];
+        int startNode = entranceCount;
+        int goalNode = entranceCount + 1;
+        var workspace = SearchWorkspace.acquire();
+        try {
+            workspace.reset(entranceCount + 2); // O(1)
+            workspace.reach(startNode, 0, this.manhattan(startIndex, goalIndex), SearchWorkspace.NO_PARENT);
+            workspace.push(startNode, this.manhattan(startIndex, goalIndex));
+
+            int node;
+            while ((node = workspace.poll()) >= 0) {
+                if (control.checkpoint())
+                    return trace;
+                if (node == goalNode) {
+                    this.refinePath(workspace, startIndex, goalIndex, towardsGoal, trace);
+                    return trace;
+                }
+                int cost = workspace.getCost(node);
+                if (node == startNode) {
+                    if (startCluster == goalCluster)
+                        this.relax(workspace, node, goalNode, goalIndex, cost, toGoal[this.localIndex(goalCluster,
+                                startIndex)], goalIndex);
+                    int[] entrances = this.clusters[startCluster].entrances();
+                    for (int i = 0; i < entrances.length; i++) // O(e)
+                        this.relax(workspace, node, this.entranceBase[startCluster] + i, entrances[i], cost,
+                                fromStart[this.localIndex(startCluster, entrances[i])], goalIndex);
+                    continue;
+                }
+
+                int cell = this.entranceCells[node];
+                if (cell != startIndex)
+                    trace.add(cell / this.cols, cell % this.cols, Cell.VISITED);
+                int cluster = this.clusterOf(cell);
+                int entrance = node - this.entranceBase[cluster];
+                int[] entrances = this.clusters[cluster].entrances();
+                int[] distances = this.clusters[cluster].distances()[entrance];
+                for (int i = 0; i < entrances.length; i++) // O(e)
+                    if (i != entrance)
+                        this.relax(workspace, node, this.entranceBase[cluster] + i, entrances[i], cost, distances[i],
+                                goalIndex);
+                for (int i = this.crossingOffsets[node]; i < this.crossingOffsets[node + 1]; i++) {
+                    int crossing = this.crossingEntrances[i];
+                    this.relax(workspace, node, crossing, this.entranceCells[crossing], cost, 1, goalIndex);
+                }
+                if (cluster == goalCluster)
+                    this.relax(workspace, node, goalNode, goalIndex, cost, toGoal[this.localIndex(goalCluster, cell)],
+                            goalIndex);
+            }
+            return trace; // No path found
+        } finally {
+            SearchWorkspace.release(workspace);
+        }
+    }
+
+    /**
+     * Reach a node of the abstract graph through an edge, if that is shorter than how it was reached before.
+     */
+    private void relax(SearchWorkspace workspace, int from, int to, int toCell, int cost, int edgeCost, int goalIndex) {
+        if (edgeCost == UNREACHABLE || cost + edgeCost >= workspace.getCost(to))
+            return;
+        int estimate = this.manhattan(toCell, goalIndex);
+        workspace.reach(to, cost + edgeCost, estimate, from);
+        workspace.push(to, cost + edgeCost + estimate); // O(log a)
+    }
+
+    public int getClusterCount() {
+        return this.clusters.length;
+    }
+
+    /**
+     * @return Number of entrances in the abstract graph
+     */
+    public int getEntranceCount() {
+        return this.entranceBase[this.clusters.length];
+    }
+
+    /**
+     * Turn the abstract path into cells. Every part of the path inside a cluster is walked along the directions
+     * towards the entrance it ends at, or towards the goal for the last part.
+     *
+     * Time complexity: O(p)
+     * Where p is the length of the path.
+     */
+    private void refinePath(SearchWorkspace workspace, int startIndex, int goalIndex, byte[] towardsGoal,
+                            TraceBuffer trace) {
+        int entranceCount = this.entranceBase[this.clusters.length];
+        int nodeCount = 0;
+        for (int node = entranceCount + 1; node != SearchWorkspace.NO_PARENT; node = workspace.getParent(node))
+            nodeCount++;
+        var nodes = new int[nodeCount];
+        for (int node = entranceCount + 1, i = nodeCount - 1; node != SearchWorkspace.NO_PARENT;
+             node = workspace.getParent(node), i--)
+            nodes[i] = node;
+
+        trace.add(startIndex / this.cols, startIndex % this.cols, Cell.PATH);
+        int cell = startIndex;
+        for (int i = 1; i < nodes.length; i++) {
+            if (i == nodes.length - 1) { // The last part ends at the goal, in the cluster of the goal
+                this.walk(this.clusterOf(goalIndex), cell, towardsGoal, trace);
+                break;
+            }
+            int entrance = this.entranceCells[nodes[i]];
+            int cluster = this.clusterOf(entrance);
+            if (this.clusterOf(cell) != cluster) { // A crossing between two clusters
+                trace.add(entrance / this.cols, entrance % this.cols, Cell.PATH);
+                cell = entrance;
+                continue;
+            }
+            this.walk(cluster, cell, this.clusters[cluster].towards()[nodes[i] - this.entranceBase[cluster]], trace);
+            cell = entrance;
+        }
+    }
+
+    /**
+     * Add the cells from a cell to the target of a map of directions to the trace, without the first cell.
+     *
+     * Time complexity: O(d) where d is the distance to the target
+     */
+    private void walk(int cluster, int from, byte[] towards, TraceBuffer trace) {
+        int cell = from;
+        byte direction;
+        while ((direction = towards[this.localIndex(cluster, cell)]) != AT_TARGET) {
+            cell += switch (direction) {
+                case 0 -> -this.cols;
+                case 1 -> this.cols;
+                case 2 -> -1;
+                case 3 -> 1;
+                default -> throw new IllegalStateException("No path inside the cluster from " + from);
+            };
+            trace.add(cell / this.cols, cell % this.cols, Cell.PATH);
+        }
+    }
+
+    /**
+     * Find the entrances on the border between a cluster and its right or lower neighbour.
+     *
+     * Time complexity: O(s)
+     *
+     * @return Pairs of cell indices (inside, outside) that cross the border
+     */
+    private int[] findEntrances(int cluster, int direction) {
+        if (this.neighbourCluster(cluster, direction) < 0)
+            return new int[0];
+        int clusterRow = cluster / this.clusterCols;
+        int clusterCol = cluster % this.clusterCols;
+        int length = direction == RIGHT
+                ? Math.min(this.rows, (clusterRow + 1) * this.clusterSize) - clusterRow * this.clusterSize
+                : Math.min(this.cols, (clusterCol + 1) * this.clusterSize) - clusterCol * this.clusterSize;
+
+        var pairs = new ArrayList<Integer>();
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length && this.isOpen(this.borderCell(cluster, direction, i, false))
+                    && this.isOpen(this.borderCell(cluster, direction, i, true));
+            if (open && runStart < 0)
+                runStart = i;
+            if (!open && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 > LONG_ENTRANCE) {
+                    this.addPair(pairs, cluster, direction, runStart);
+                    this.addPair(pairs, cluster, direction, runEnd);
+                } else {
+                    this.addPair(pairs, cluster, direction, (runStart + runEnd) / 2);
+                }
+                runStart = -1;
+            }
+        }
+        return pairs.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void addPair(List<Integer> pairs, int cluster, int direction, int offset) {
+        pairs.add(this.borderCell(cluster, direction, offset, false));
+        pairs.add(this.borderCell(cluster, direction, offset, true));
+    }
+
+    /**
+     * @param outside true for the cell in the neighbouring cluster, false for the cell in the cluster itself
+     * @return Cell index of a cell along the right or lower border of a cluster
+     */
+    private int borderCell(int cluster, int direction, int offset, boolean outside) {
+        int clusterRow = cluster / this.clusterCols;
+        int clusterCol = cluster % this.clusterCols;
+        if (direction == RIGHT) {
+            int col = (clusterCol + 1) * this.clusterSize - 1 + (outside ? 1 : 0);
+            return (clusterRow * this.clusterSize + offset) * this.cols + col;
+        }
+        int row = (clusterRow + 1) * this.clusterSize - 1 + (outside ? 1 : 0);
+        return row * this.cols + clusterCol * this.clusterSize + offset;
+    }
+
+    /**
+     * Collect the entrances of a cluster from its four borders and compute the distances between them.
+     *
+     * Time complexity: O(e s^2)
+     */
+    private Cluster buildCluster(int cluster) {
+        Map<Integer, List<Integer>> crossings = new TreeMap<>(); // Sorted by entrance for binary searches
+        int clusterRow = cluster / this.clusterCols;
+        int clusterCol = cluster % this.clusterCols;
+        this.collectCrossings(crossings, this.borderPairs[cluster * 2 + RIGHT], false);
+        this.collectCrossings(crossings, this.borderPairs[cluster * 2 + DOWN], false);
+        if (clusterCol > 0)
+            this.collectCrossings(crossings, this.borderPairs[(cluster - 1) * 2 + RIGHT], true);
+        if (clusterRow > 0)
+            this.collectCrossings(crossings, this.borderPairs[(cluster - this.clusterCols) * 2 + DOWN], true);
+
+        int[] entrances = crossings.keySet().stream().mapToInt(Integer::intValue).toArray();
+        int[][] entranceCrossings = crossings.values().stream()
+                .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+        int[][] distances = new int[entrances.length][entrances.length];
+        byte[][] towards = new byte[entrances.length][this.clusterSize * this.clusterSize];
+        var distance = new int[this.clusterSize * this.clusterSize];
+        for (int i = 0; i < entrances.length; i++) {
+            this.searchCluster(cluster, entrances[i], distance, towards[i]);
+            for (int j = 0; j < entrances.length; j++)
+                distances[i][j] = distance[this.localIndex(cluster, entrances[j])];
+        }
+        return new Cluster(entrances, distances, entranceCrossings, towards);
+    }
+
+    private void collectCrossings(Map<Integer, List<Integer>> crossings, int[] pairs, boolean reversed) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            int inside = reversed ? pairs[i + 1] : pairs[i];
+            int outside = reversed ? pairs[i] : pairs[i + 1];
+            crossings.computeIfAbsent(inside, key -> new ArrayList<>()).add(outside);
+        }
+    }
+
+    /**
+     * Breadth first search inside a cluster.
+     *
+     * Time complexity: O(s^2)
+     *
+     * @param distance Filled with the distance from the source to every cell of the cluster, indexed by localIndex
+     * @param towards  Filled with the direction towards the source from every cell of the cluster, or null
+     */
+    private void searchCluster(int cluster, int source, int[] distance, byte[] towards) {
+        int top = cluster / this.clusterCols * this.clusterSize;
+        int left = cluster % this.clusterCols * this.clusterSize;
+        int bottom = Math.min(this.rows, top + this.clusterSize);
+        int right = Math.min(this.cols, left + this.clusterSize);
+        Arrays.fill(distance, UNREACHABLE);
+        if (towards != null)
+            Arrays.fill(towards, NO_DIRECTION);
+        var queue = new int[this.clusterSize * this.clusterSize];
+        int head = 0;
+        int tail = 0;
+        distance[this.localIndex(cluster, source)] = 0;
+        if (towards != null)
+            towards[this.localIndex(cluster, source)] = AT_TARGET;
+        queue[tail++] = source;
+
+        int[] rowOffsets = {-1, 1, 0, 0};
+        int[] colOffsets = {0, 0, -1, 1};
+        while (head < tail) {
+            int current = queue[head++];
+            int row = current / this.cols;
+            int col = current % this.cols;
+            for (int i = 0; i < 4; i++) {
+                int neighbourRow = row + rowOffsets[i];
+                int neighbourCol = col + colOffsets[i];
+                if (neighbourRow < top || neighbourRow >= bottom || neighbourCol < left || neighbourCol >= right)
+                    continue;
+                int neighbour = neighbourRow * this.cols + neighbourCol;
+                int local = this.localIndex(cluster, neighbour);
+                if (!this.isOpen(neighbour) || distance[local] != UNREACHABLE)
+                    continue;
+                distance[local] = distance[this.localIndex(cluster, current)] + 1;
+                if (towards != null)
+                    towards[local] = (byte) (i ^ 1); // The opposite direction leads back to the current cell
+                queue[tail++] = neighbour;
+            }
+        }
+    }
+
+    private long fingerprint(int cluster) {
+        int top = cluster / this.clusterCols * this.clusterSize;
+        int left = cluster % this.clusterCols * this.clusterSize;
+        long hash = 1;
+        for (int row = top; row < Math.min(this.rows, top + this.clusterSize); row++)
+            for (int col = left; col < Math.min(this.cols, left + this.clusterSize); col++)
+                hash = hash * 31 + (this.maze[row][col] == Cell.WALL ? 1 : 2);
+        return hash;
+    }
+
+    private int neighbourCluster(int cluster, int direction) {
+        if (direction == RIGHT)
+            return cluster % this.clusterCols < this.clusterCols - 1 ? cluster + 1 : -1;
+        return cluster / this.clusterCols < this.clusterRows - 1 ? cluster + this.clusterCols : -1;
+    }
+
+    private List<Integer> neighbourClusters(int cluster) {
+        var neighbours = new ArrayList<Integer>();
+        if (cluster % this.clusterCols > 0)
+            neighbours.add(cluster - 1);
+        if (cluster % this.clusterCols < this.clusterCols - 1)
+            neighbours.add(cluster + 1);
+        if (cluster / this.clusterCols > 0)
+            neighbours.add(cluster - this.clusterCols);
+        if (cluster / this.clusterCols < this.clusterRows - 1)
+            neighbours.add(cluster + this.clusterCols);
+        return neighbours;
+    }
+
+    private int clusterOf(int cell) {
+        return cell / this.cols / this.clusterSize * this.clusterCols + cell % this.cols / this.clusterSize;
+    }
+
+    private int localIndex(int cluster, int cell) {
+        int top = cluster / this.clusterCols * this.clusterSize;
+        int left = cluster % this.clusterCols * this.clusterSize;
+        return (cell / this.cols - top) * this.clusterSize + cell % this.cols - left;
+    }
+
+    private boolean isOpen(int cell) {
+        return this.maze[cell / this.cols][cell % this.cols] != Cell.WALL;
+    }
+
+    private int manhattan(int from, int to) {
+        return Math.abs(from / this.cols - to / this.cols) + Math.abs(from % this.cols - to % this.cols);
+    }
+}
@@ -0,0 +1,292 @@
+import java.util.Arrays;
+
+/**
+ * A search session from a fixed start that is repaired instead of redone when the goal moves or walls change, with
+ * Lifelong Planning A* (LPA*).
+ * Every cell keeps its distance from the start, g, and the distance its neighbours imply, rhs. The cells where the
+ * two differ are queued, and a query only expands them until the goal is settled, so after a small change only the
+ * part of the search it affects is expanded again. Moving the goal reorders the queue by the new heuristic, the
+ * distances stay valid because they are measured from the start. A session is for one start, a new start needs a
+ * new session.
+ * The session reads the maze it was created with, the caller changes the maze and then reports the changed cell.
+ */
+public class IncrementalSearch {
+
+    private static final int INFINITE = Integer.MAX_VALUE / 2; // Plus one never overflows
+
+    private final Cell[][] maze;
+    private final int rows;
+    private final int cols;
+    private final int start;
+    private final int[] g;
+    private final int[] rhs;
+    private final int[] heapIndex; // Position in the heap plus one, 0 if the cell isn't queued
+    private int[] heap = new int[1024];
+    private long[] heapKeys = new long[1024]; // The key of every queued cell, see key
+    private int heapSize;
+    private int goal = -1;
+
+    /**
+     * Time complexity: O(nm)
+     * Where n is the height of the maze and m is the width of the maze.
+     *
+     * @param maze  The maze to search, changes to it are reported with updateCell
+     * @param start Where every query starts
+     */
+    public IncrementalSearch(Cell[][] maze, Coordinate start) {
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        this.start = start.row() * this.cols + start.col();
+        this.g = new int[this.rows * this.cols];
+        this.rhs = new int[this.rows * this.cols];
+        this.heapIndex = new int[this.rows * this.cols];
+        Arrays.fill(this.g, INFINITE);
+        Arrays.fill(this.rhs, INFINITE);
+        this.updateVertex(this.start);
+    }
+
+    public Coordinate getStart() {
+        return new Coordinate(this.start / this.cols, this.start % this.cols);
+    }
+
+    /**
+     * @return Bytes used by the session
+     */
+    public long memoryBytes() {
+        return (long) this.g.length * 3 * Integer.BYTES + (long) this.heap.length * (Integer.BYTES + Long.BYTES);
+    }
+
+    /**
+     * Find a shortest path from the start to the goal, repairing the distances left by the previous queries. Every
+     * expanded cell is added to the trace as visited, followed by the path from the start to the goal. The number of
+     * expanded cells is set as the summary of the control.
+     * A stopped query leaves the session consistent, the next query continues the repair.
+     *
+     * Time complexity: O(k log k) where k is the number of cells the changes since the last query affect, O(N log N)
+     * for the first query
+     * Where N is the number of open cells.
+     *
+     * @param goal    Where the goal is in the maze
+     * @param control Cancellation and budget of the search
+     * @return The steps of the search, partial if the search was stopped by the control
+     */
+    public synchronized TraceBuffer findPath(Coordinate goal, SearchControl control) {
+        var trace = new TraceBuffer(this.rows, this.cols, false);
+        int goalCell = goal.row() * this.cols + goal.col();
+        if (goalCell != this.goal) {
+            this.goal = goalCell;
+            this.reorderQueue();
+        }
+
+        long expanded = 0;
+        while (this.heapSize > 0 && (this.heapKeys[0] < this.key(goalCell) || this.rhs[goalCell] != this.g[goalCell])) {
+            if (control.checkpoint())
+                return trace;
+            int cell = this.poll();
+            expanded++;
+            trace.add(cell / this.cols, cell % this.cols, Cell.VISITED);
+            if (this.g[cell] > this.rhs[cell]) { // Shorter than before, settle it
+                this.g[cell] = this.rhs[cell];
+                this.updateNeighbours(cell);
+            } else { // Longer than before, raise it and let its neighbours find their new distance
+                this.g[cell] = INFINITE;
+                this.updateVertex(cell);
+                this.updateNeighbours(cell);
+            }
+        }
+        control.setSummary(String.format("%,d cells repaired", expanded));
+        if (this.g[goalCell] < INFINITE)
+            this.addPath(goalCell, trace);
+        return trace;
+    }
+
+    /**
+     * Report that a cell of the maze changed between a wall and an open cell.
+     *
+     * Time complexity: O(log q) where q is the number of queued cells
+     *
+     * @param cell The changed cell
+     */
+    public synchronized void updateCell(Coordinate cell) {
+        int index = cell.row() * this.cols + cell.col();
+        this.updateVertex(index);
+        this.updateNeighbours(index);
+    }
+
+    private void updateNeighbours(int cell) {
+        int row = cell / this.cols;
+        int col = cell % this.cols;
+        if (row > 0)
+            this.updateVertex(cell - this.cols);
+        if (row < this.rows - 1)
+            this.updateVertex(cell + this.cols);
+        if (col > 0)
+            this.updateVertex(cell - 1);
+        if (col < this.cols - 1)
+            this.updateVertex(cell + 1);
+    }
+
+    /**
+     * Recompute the rhs of a cell from its neighbours, and queue it if it is inconsistent.
+     */
+    private void updateVertex(int cell) {
+        if (this.isWall(cell))
+            this.rhs[cell] = INFINITE;
+        else if (cell == this.start)
+            this.rhs[cell] = 0;
+        else
+            this.rhs[cell] = Math.min(INFINITE, this.minNeighbourG(cell) + 1);
+
+        if (this.g[cell] != this.rhs[cell]) {
+            if (this.heapIndex[cell] == 0)
+                this.push(cell);
+            else
+                this.changeKey(cell);
+        } else if (this.heapIndex[cell] != 0) {
+            this.remove(cell);
+        }
+    }
+
+    /**
+     * @return The smallest g of the open neighbours of the cell
+     */
+    private int minNeighbourG(int cell) {
+        int row = cell / this.cols;
+        int col = cell % this.cols;
+        int min = INFINITE;
+        if (row > 0 && !this.isWall(cell - this.cols))
+            min = Math.min(min, this.g[cell - this.cols]);
+        if (row < this.rows - 1 && !this.isWall(cell + this.cols))
+            min = Math.min(min, this.g[cell + this.cols]);
+        if (col > 0 && !this.isWall(cell - 1))
+            min = Math.min(min, this.g[cell - 1]);
+        if (col < this.cols - 1 && !this.isWall(cell + 1))
+            min = Math.min(min, this.g[cell + 1]);
+        return min;
+    }
+
+    private void addPath(int goalCell, TraceBuffer trace) {
+        var path = new int[this.g[goalCell] + 1];
+        int cell = goalCell;
+        for (int step = path.length - 1; step > 0; step--) { // O(p), every cell has a neighbour one step closer
+            path[step] = cell;
+            int row = cell / this.cols;
+            int col = cell % this.cols;
+            int distance = this.g[cell] - 1;
+            if (row > 0 && !this.isWall(cell - this.cols) && this.g[cell - this.cols] == distance)
+                cell -= this.cols;
+            else if (row < this.rows - 1 && !this.isWall(cell + this.cols) && this.g[cell + this.cols] == distance)
+                cell += this.cols;
+            else if (col > 0 && !this.isWall(cell - 1) && this.g[cell - 1] == distance)
+                cell -= 1;
+            else if (col < this.cols - 1 && !this.isWall(cell + 1) && this.g[cell + 1] == distance)
+                cell += 1;
+            else
+                throw new IllegalStateException("No neighbour of (" + row + ", " + col + ") is one step closer");
+        }
+        path[0] = cell;
+        for (int pathCell : path)
+            trace.add(pathCell / this.cols, pathCell % this.cols, Cell.PATH);
+    }
+
+    private boolean isWall(int cell) {
+        return this.maze[cell / this.cols][cell % this.cols] == Cell.WALL;
+    }
+
+    /**
+     * The queue order of a cell, by the smaller of g and rhs plus the manhattan distance to the goal, ties by the
+     * smaller of g and rhs. Packed into one long so it is compared with a single comparison.
+     */
+    private long key(int cell) {
+        long distance = Math.min(this.g[cell], this.rhs[cell]);
+        long estimate = this.goal < 0 ? 0 : Math.abs(cell / this.cols - this.goal / this.cols)
+                + Math.abs(cell % this.cols - this.goal % this.cols);
+        return (distance + estimate) << 32 | distance;
+    }
+
+    /**
+     * Recompute the key of every queued cell for a new goal.
+     *
+     * Time complexity: O(q)
+     */
+    private void reorderQueue() {
+        for (int i = 0; i < this.heapSize; i++)
+            this.heapKeys[i] = this.key(this.heap[i]);
+        for (int i = this.heapSize / 2 - 1; i >= 0; i--)
+            this.siftDown(i);
+    }
+
+    private void push(int cell) {
+        if (this.heapSize == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.heapSize * 2);
+            this.heapKeys = Arrays.copyOf(this.heapKeys, this.heapSize * 2);
+        }
+        this.heap[this.heapSize] = cell;
+        this.heapKeys[this.heapSize] = this.key(cell);
+        this.heapIndex[cell] = ++this.heapSize;
+        this.siftUp(this.heapSize - 1);
+    }
+
+    private int poll() {
+        int cell = this.heap[0];
+        this.remove(cell);
+        return cell;
+    }
+
+    private void remove(int cell) {
+        int position = this.heapIndex[cell] - 1;
+        this.heapIndex[cell] = 0;
+        if (position == --this.heapSize)
+            return;
+        this.heap[position] = this.heap[this.heapSize];
+        this.heapKeys[position] = this.heapKeys[this.heapSize];
+        this.heapIndex[this.heap[position]] = position + 1;
+        this.siftDown(position);
+        this.siftUp(position);
+    }
+
+    private void changeKey(int cell) {
+        int position = this.heapIndex[cell] - 1;
+        this.heapKeys[position] = this.key(cell);
+        this.siftDown(position);
+        this.siftUp(position);
+    }
+
+    private void siftUp(int position) {
+        int cell = this.heap[position];
+        long key = this.heapKeys[position];
+        while (position > 0 && this.heapKeys[(position - 1) / 2] > key) {
+            this.move((position - 1) / 2, position);
+            position = (position - 1) / 2;
+        }
+        this.place(cell, key, position);
+    }
+
+    private void siftDown(int position) {
+        int cell = this.heap[position];
+        long key = this.heapKeys[position];
+        while (2 * position + 1 < this.heapSize) {
+            int child = 2 * position + 1;
+            if (child + 1 < this.heapSize && this.heapKeys[child + 1] < this.heapKeys[child])
+                child++;
+            if (this.heapKeys[child] >= key)
+                break;
+            this.move(child, position);
+            position = child;
+        }
+        this.place(cell, key, position);
+    }
+
+    private void move(int from, int to) {
+        this.heap[to] = this.heap[from];
+        this.heapKeys[to] = this.heapKeys[from];
+        this.heapIndex[this.heap[to]] = to + 1;
+    }
+
+    private void place(int cell, long key, int position) {
+        this.heap[position] = cell;
+        this.heapKeys[position] = key;
+        this.heapIndex[cell] = position + 1;
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * ALT (A*, landmarks and triangle inequality) heuristic.
+ * The exact distance from a few landmark cells to every cell is precomputed. By the triangle inequality
+ * |d(L, goal) - d(L, cell)| is never more than the distance from cell to goal, so the heuristic stays admissible
+ * while being far closer to the real distance than the manhattan distance in winding mazes.
+ */
+public class LandmarkHeuristic {
+
+    public static final int DEFAULT_LANDMARKS = 8;
+    private static final int UNREACHABLE = -1;
+
+    private final int cols;
+    private final int[] landmarks;
+    private final int[][] distances;
+
+    private LandmarkHeuristic(int cols, int[] landmarks, int[][] distances) {
+        this.cols = cols;
+        this.landmarks = landmarks;
+        this.distances = distances;
+    }
+
+    /**
+     * Choose the landmarks and compute the distance from every landmark to every cell.
+     * The first landmark is the cell farthest from the first open cell. Every following landmark is the open cell
+     * farthest (in manhattan distance) from all chosen landmarks, which spreads them along the edges of the maze.
+     * The breadth first searches from the landmarks run in parallel.
+     *
+     * Time complexity: O(k nm)
+     * Where k is the number of landmarks, n is the height of the maze and m is the width of the maze.
+     *
+     * @param maze          The maze to preprocess
+     * @param landmarkCount Number of landmarks to choose
+     * @return The heuristic, or null if the maze has no open cells
+     */
+    public static LandmarkHeuristic compute(Cell[][] maze, int landmarkCount) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        int firstOpen = -1;
+        for (int i = 0; i < rows * cols && firstOpen < 0; i++)
+            if (maze[i / cols][i % cols] != Cell.WALL)
+                firstOpen = i;
+        if (firstOpen < 0)
+            return null;
+
+        var landmarks = new int[landmarkCount];
+        landmarks[0] = farthestCell(breadthFirstSearch(maze, firstOpen)); // O(nm)
+
+        // Minimum manhattan distance from every cell to the chosen landmarks
+        var closest = new int[rows * cols];
+        Arrays.fill(closest, Integer.MAX_VALUE);
+        for (int k = 1; k < landmarkCount; k++) { // O(k nm)
+            int previous = landmarks[k - 1];
+            int best = -1;
+            for (int i = 0; i < rows * cols; i++) {
+                if (maze[i / cols][i % cols] == Cell.WALL)
+                    continue;
+                int distance = Math.abs(i / cols - previous / cols) + Math.abs(i % cols - previous % cols);
+                closest[i] = Math.min(closest[i], distance);
+                if (best < 0 || closest[i] > closest[best])
+                    best = i;
+            }
+            landmarks[k] = best;
+        }
+
+        int[] chosen = Arrays.stream(landmarks).distinct().toArray();
+        int[][] distances = new int[chosen.length][];
+        IntStream.range(0, chosen.length).parallel()
+                .forEach(k -> distances[k] = breadthFirstSearch(maze, chosen[k])); // O(k nm / cores)
+
+        return new LandmarkHeuristic(cols, chosen, distances);
+    }
+
+    /**
+     * Estimate the distance between two cells.
+     *
+     * Time complexity: O(k)
+     *
+     * @param from The cell to estimate the distance from
+     * @param to   The cell to estimate the distance to
+     * @return A lower bound of the distance between the cells
+     */
+    public int estimate(Coordinate from, Coordinate to) {
+        return this.estimate(from.row() * this.cols + from.col(), to.row() * this.cols + to.col());
+    }
+
+    /**
+     * Estimate the distance between two cells given by their index, row * cols + col.
+     *
+     * Time complexity: O(k)
+     */
+    public int estimate(int fromIndex, int toIndex) {
+        int estimate = 0;
+        for (int[] distance : this.distances) {
+            if (distance[fromIndex] == UNREACHABLE || distance[toIndex] == UNREACHABLE)
+                continue;
+            estimate = Math.max(estimate, Math.abs(distance[toIndex] - distance[fromIndex]));
+        }
+        return estimate;
+    }
+
+    public int getLandmarkCount() {
+        return this.landmarks.length;
+    }
+
+    public Coordinate getLandmark(int landmark) {
+        return new Coordinate(this.landmarks[landmark] / this.cols, this.landmarks[landmark] % this.cols);
+    }
+
+    /**
+     * @return Bytes used by the distance arrays
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (int[] distance : this.distances)
+            bytes += (long) distance.length * Integer.BYTES;
+        return bytes;
+    }
+
+    /**
+     * Breadth first search from a cell, recording the distance to every cell.
+     *
+     * Time complexity: O(nm)
+     *
+     * @return The distance to every cell, UNREACHABLE for walls and cells that can't be reached
+     */
+    private static int[] breadthFirstSearch(Cell[][] maze, int source) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        var distance = new int[rows * cols];
+        Arrays.fill(distance, UNREACHABLE);
+        var queue = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        distance[source] = 0;
+        queue[tail++] = source;
+
+        while (head < tail) {
+            int current = queue[head++];
+            int row = current / cols;
+            int col = current % cols;
+            int next = distance[current] + 1;
+            if (row > 0 && maze[row - 1][col] != Cell.WALL && distance[current - cols] == UNREACHABLE) {
+                distance[current - cols] = next;
+                queue[tail++] = current - cols;
+            }
+            if (row < rows - 1 && maze[row + 1][col] != Cell.WALL && distance[current + cols] == UNREACHABLE) {
+                distance[current + cols] = next;
+                queue[tail++] = current + cols;
+            }
+            if (col > 0 && maze[row][col - 1] != Cell.WALL && distance[current - 1] == UNREACHABLE) {
+                distance[current - 1] = next;
+                queue[tail++] = current - 1;
+            }
+            if (col < cols - 1 && maze[row][col + 1] != Cell.WALL && distance[current + 1] == UNREACHABLE) {
+                distance[current + 1] = next;
+                queue[tail++] = current + 1;
+            }
+        }
+        return distance;
+    }
+
+    private static int farthestCell(int[] distance) {
+        int farthest = 0;
+        for (int i = 1; i < distance.length; i++)
+            if (distance[i] > distance[farthest])
+                farthest = i;
+        return farthest;
+    }
+}
@@ -16,6 +16,14 @@ public class MazeLoader {
         UP, DOWN, LEFT, RIGHT
     }
 
+    /**
+     * A maze with the cost of entering every cell.
+     *
+     * @param maze  2D array of cells
+     * @param costs Cost of every cell indexed by row * cols + col, 1 to 255 as an unsigned byte
+     */
+    public record WeightedMaze(Cell[][] maze, byte[] costs) {}
+
     /**
      * Load the maze image into a 2D array representation of the maze.
      * The image should be jpg and the maze should be black and white, where black is a wall and white is a path.
@@ -46,6 +54,71 @@ public class MazeLoader {
         return reduceMaze(maze, pathSize);
     }
 
+    /**
+     * Load the maze image like loadMaze, and the gray level of every cell as the cost of entering it. White cells cost
+     * 1 and the darkest gray that isn't a wall costs 255.
+     * Time complexity: O(nm)
+     * Where n is the height of the maze and m is the width of the maze.
+     * @param mazeImage image of the maze
+     * @return the maze and the cost of its cells
+     */
+    public WeightedMaze loadWeightedMaze(File mazeImage) {
+        BufferedImage bImage = this.processImage(mazeImage);
+        int pathSize = findSmallestContinuousWhite(bImage); // Time complexity: O(n+m)
+        int width = bImage.getWidth();
+        int height = bImage.getHeight();
+
+        Cell[][] maze = new Cell[height][width];
+        byte[][] costs = new byte[height][width];
+        for (int y = 0; y < height; y++) { // Time complexity: O(nm)
+            for (int x = 0; x < width; x++) { // Time complexity: O(n)
+                int color = bImage.getRGB(x, y);
+                maze[y][x] = isNotWall(color) ? Cell.TRAVERSABLE : Cell.WALL;
+                costs[y][x] = (byte) grayCost(color);
+            }
+        }
+
+        // The cells of the reduced maze are the pixels at these rows and columns, the same as in reduceMaze
+        int wallSize = getWallWidth(maze);
+        int[] rows = reducedIndexes(height, wallSize, pathSize + wallSize);
+        int[] cols = reducedIndexes(width, wallSize, pathSize + wallSize);
+        var reducedCosts = new byte[rows.length * cols.length];
+        for (int row = 0; row < rows.length; row++) // Time complexity: O(nm)
+            for (int col = 0; col < cols.length; col++)
+                reducedCosts[row * cols.length + col] = costs[rows[row]][cols[col]];
+        return new WeightedMaze(reduceMaze(maze, pathSize), reducedCosts);
+    }
+
+    /**
+     * The indexes of the full scale rows or columns that are kept by reduceMaze and reduceRowByInterval.
+     * Time complexity: O(n)
+     * @param length   number of full scale rows or columns
+     * @param wallSize size of the walls
+     * @param skipSize size of a path and a wall
+     * @return the kept indexes in order
+     */
+    private static int[] reducedIndexes(int length, int wallSize, int skipSize) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = wallSize - 1; i < length; i += skipSize) {
+            indexes.add(i);
+            if (i + 1 < length) {
+                indexes.add(i + 1);
+            }
+        }
+        return indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * The cost of entering a pixel from its gray level, in 255 levels from 1 for white to 255 for black.
+     * Time complexity: O(1)
+     * @param color color of the pixel
+     * @return cost from 1 to 255
+     */
+    private static int grayCost(int color) {
+        int gray = (((color >> 16) & 0xFF) + ((color >> 8) & 0xFF) + (color & 0xFF)) / 3;
+        return 1 + (255 - gray) * 254 / 255;
+    }
+
     /**
      * Reduces the full scale maze array to a compressed version where the path and wall is only one cell wide.
      * Time complexity: O(nm)
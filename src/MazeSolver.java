@@ -4,14 +4,347 @@ import java.util.*;
 
 public class MazeSolver {
 
+    private final PortfolioSolver portfolio = new PortfolioSolver();
+    private final PathCache cache = new PathCache();
     private Cell[][] maze;
+    private long mazeHash;
+    private LandmarkHeuristic landmarks;
+    private HierarchicalPathfinder hierarchy;
+    private TreeMazeIndex treeIndex;
+    private BitboardFloodFill bitboard;
+    private ComponentLabels components;
+    private MazeStatistics statistics;
+    private volatile FilledMaze filledMaze;
+    private byte[] costs;
+    private TerrainCostSearch terrain;
+    private FringeSearch fringe;
+    private IncrementalSearch incremental;
+    private volatile boolean stale; // Walls changed since the preprocessing
 
     public Cell[][] getMaze() {
         return maze;
     }
 
+    /**
+     * Set the maze to solve and preprocess it.
+     *
+     * The HPA* abstraction is rebuilt incrementally, only the clusters that differ from the previous maze are rebuilt.
+     * Perfect mazes are also indexed for path queries without searching.
+     *
+     * Time complexity: O(k nm)
+     * Where k is the number of landmarks, n is the height of the maze and m is the width of the maze.
+     *
+     * @param maze The maze to solve
+     */
     public void setMaze(Cell[][] maze) {
+        this.setMaze(maze, null);
+    }
+
+    /**
+     * Set the maze to solve with the cost of entering every cell, and preprocess it. Only the algorithms that use
+     * costs find the cheapest path, the others find the shortest. The maze is replaced under the lock of the
+     * preprocessing, so a search refreshing stale preprocessing never sees half of the new maze.
+     *
+     * Time complexity: O(k nm)
+     *
+     * @param maze  The maze to solve
+     * @param costs Cost of every cell indexed by row * cols + col, 1 to 255 as an unsigned byte, or null for 1
+     */
+    public synchronized void setMaze(Cell[][] maze, byte[] costs) {
         this.maze = maze;
+        this.costs = costs;
+        this.incremental = null;
+        this.preprocess();
+    }
+
+    /**
+     * Time complexity: O(k nm)
+     */
+    private synchronized void preprocess() {
+        var maze = this.maze;
+        this.mazeHash = mazeHash(maze, this.costs);
+        this.terrain = new TerrainCostSearch(maze, this.costs);
+        this.fringe = new FringeSearch(maze);
+        this.bitboard = new BitboardFloodFill(maze);
+        this.components = ComponentLabels.compute(maze);
+        this.statistics = this.computeStatistics();
+        this.filledMaze = null;
+        this.cache.clear();
+        this.rebuildStale();
+    }
+
+    /**
+     * Rebuild the preprocessing that setWall can't update in place: the landmarks, the changed clusters of the HPA*
+     * abstraction and the tree index.
+     *
+     * Time complexity: O(k nm)
+     */
+    private synchronized void rebuildStale() {
+        var maze = this.maze;
+        this.landmarks = LandmarkHeuristic.compute(maze, LandmarkHeuristic.DEFAULT_LANDMARKS);
+        this.hierarchy = HierarchicalPathfinder.build(maze, HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE,
+                this.hierarchy);
+        this.treeIndex = TreeMazeIndex.build(maze);
+        this.stale = false;
+    }
+
+    /**
+     * Turn a cell of the maze into a wall or an open cell. The connected regions, the bitboard, the statistics and
+     * the hash are updated right away and the incremental session is repaired on its next query. The landmarks, the
+     * HPA* abstraction and the tree index are stale until the next solve with another algorithm rebuilds them. The
+     * maze is changed in place, so no search may run while it is called.
+     *
+     * Time complexity: O(s) to update the connected regions, see ComponentLabels.update
+     *
+     * @param cell The cell to change
+     * @param wall true to make it a wall, false to open it
+     */
+    public synchronized void setWall(Coordinate cell, boolean wall) {
+        int row = cell.row();
+        int col = cell.col();
+        int cols = this.maze[0].length;
+        var before = this.countCellsAround(row, col);
+        long hashChange = (wall ? 1 : 2) - (this.maze[row][col] == Cell.WALL ? 1 : 2);
+        this.maze[row][col] = wall ? Cell.WALL : Cell.TRAVERSABLE;
+        this.components.update(this.maze, row, col); // Keeps isConnected right without the rest
+        this.bitboard.setOpen(row, col, !wall);
+        if (!wall)
+            this.terrain.cellOpened(row * cols + col);
+        var after = this.countCellsAround(row, col);
+        var statistics = this.statistics;
+        this.statistics = new MazeStatistics(statistics.rows(), statistics.cols(),
+                statistics.openCells() + after[0] - before[0], statistics.junctions() + after[1] - before[1],
+                statistics.edges() + after[2] - before[2], this.components.getComponentCount(),
+                statistics.roomCells() + after[3] - before[3]);
+        // The cell is a term of the polynomial hash, weighted by 31 to the power of the cells after it
+        this.mazeHash += hashChange * power(31, (long) this.maze.length * cols - row * (long) cols - col);
+        this.filledMaze = null;
+        this.cache.clear();
+        this.stale = true;
+        if (this.incremental != null)
+            this.incremental.updateCell(cell);
+    }
+
+    /**
+     * @return true if walls were changed since the maze was last preprocessed
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * @return The landmarks used by the A* heuristic, or null if the maze has no open cells
+     */
+    public LandmarkHeuristic getLandmarks() {
+        return landmarks;
+    }
+
+    public HierarchicalPathfinder getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * @return A hash of the walls of the maze, equal for mazes with the same walls
+     */
+    public long getMazeHash() {
+        return mazeHash;
+    }
+
+    public ComponentLabels getComponents() {
+        return components;
+    }
+
+    public MazeStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return The cost of every cell, or null if every cell costs 1
+     */
+    public byte[] getCosts() {
+        return costs;
+    }
+
+    public PathCache.Statistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
+    /**
+     * Forget the cached paths, so the next queries are searched again.
+     */
+    public void clearCache() {
+        this.cache.clear();
+    }
+
+    /**
+     * Check if there is a path between two cells without searching.
+     *
+     * Time complexity: O(1)
+     *
+     * @return true if both cells are open and in the same connected region
+     */
+    public boolean isConnected(Coordinate start, Coordinate goal) {
+        return this.components.isConnected(start, goal);
+    }
+
+    /**
+     * @return The path index of the maze, or null if the maze is not a perfect maze
+     */
+    public TreeMazeIndex getTreeIndex() {
+        return treeIndex;
+    }
+
+    /**
+     * Solve the maze with the given algorithm and default options.
+     *
+     * @param algorithm The algorithm to use
+     * @param start     Where to start in the maze
+     * @param goal      Where the goal is in the maze
+     * @param control   Cancellation and budget of the search
+     * @return The results of the search, partial if the search was stopped by the control
+     */
+    public TraceBuffer solve(Algorithm algorithm, Coordinate start, Coordinate goal, SearchControl control) {
+        return this.solve(algorithm, start, goal, SolveOptions.DEFAULT, control);
+    }
+
+    /**
+     * Solve the maze with the given algorithm. The results of completed searches are cached, a query that was solved
+     * before, or solved in the opposite direction, is answered from the cache without searching.
+     *
+     * @param algorithm The algorithm to use
+     * @param start     Where to start in the maze
+     * @param goal      Where the goal is in the maze
+     * @param options   Options of the algorithm
+     * @param control   Cancellation and budget of the search
+     * @return The results of the search, partial if the search was stopped by the control
+     */
+    public TraceBuffer solve(Algorithm algorithm, Coordinate start, Coordinate goal, SolveOptions options,
+                             SearchControl control) {
+        if (!this.isConnected(start, goal))
+            return new TraceBuffer(this.maze.length, this.maze[0].length, false); // No path, nothing to search
+
+        if (algorithm != Algorithm.INCREMENTAL) // Repairs itself, the others use the preprocessing
+            this.refreshIfStale();
+        if (algorithm == Algorithm.AUTO) // Not cached itself, the planned algorithm is
+            return this.solvePlanned(start, goal, options, control);
+
+        var cached = this.cache.get(this.mazeHash, start, goal, algorithm, options, control);
+        if (cached != null)
+            return cached;
+        var trace = this.search(algorithm, start, goal, options, control);
+        if (!control.isStopped())
+            this.cache.put(this.mazeHash, start, goal, algorithm, options, trace, control.getSummary());
+        return trace;
+    }
+
+    private TraceBuffer search(Algorithm algorithm, Coordinate start, Coordinate goal, SolveOptions options,
+                               SearchControl control) {
+        if (algorithm == Algorithm.RACE) // The racers fill the dead ends themselves
+            return this.portfolio.solve(this, start, goal, options, control);
+
+        if (options.fillDeadEnds())
+            return this.fillDeadEnds(start, goal).solver()
+                    .solve(algorithm, start, goal, options.withFillDeadEnds(false), control);
+
+        return switch (algorithm) {
+            case ASTAR -> this.aStarTrace(start, goal, false, control, false);
+            case GREEDY_ASTAR -> this.aStarTrace(start, goal, true, control, false);
+            case DIJKSTRA -> this.dijkstra1Trace(start, goal, control, false);
+            case DIJKSTRA2 -> this.dijkstra2Trace(start, goal, control);
+            case WEIGHTED_ASTAR -> this.weightedAStarTrace(start, goal, options.epsilon(), control, false);
+            case ANYTIME_ASTAR -> this.anytimeAStarTrace(start, goal, options.epsilon(), control, false);
+            case HPA_STAR -> this.hierarchy.findPath(start, goal, control);
+            case TREE_PATH -> this.treeIndex != null // Fall back to A* when the maze has loops
+                    ? this.treeIndex.findPath(start, goal, control)
+                    : this.aStarTrace(start, goal, false, control, false);
+            case PARALLEL_BFS -> ParallelBreadthFirstSearch.findPath(this.maze, start, goal, control);
+            case BITBOARD_BFS -> this.bitboard.findPath(start, goal, control);
+            case FRINGE -> this.fringe.findPath(start, goal, control);
+            case INCREMENTAL -> this.incrementalSession(start).findPath(goal, control);
+            case TERRAIN_ASTAR -> this.terrain.findPath(start, goal, true, control);
+            case TERRAIN_DIJKSTRA -> this.terrain.findPath(start, goal, false, control);
+            case RACE, AUTO -> throw new IllegalStateException(algorithm + " chooses the algorithm before searching");
+        };
+    }
+
+    private synchronized void refreshIfStale() {
+        if (this.stale)
+            this.rebuildStale();
+    }
+
+    /**
+     * @return The incremental session from the start, a new one if the last session started elsewhere
+     */
+    private synchronized IncrementalSearch incrementalSession(Coordinate start) {
+        if (this.incremental == null || !this.incremental.getStart().equals(start))
+            this.incremental = new IncrementalSearch(this.maze, start);
+        return this.incremental;
+    }
+
+    /**
+     * Plan routes for agents that move through the maze at the same time without colliding.
+     *
+     * @param agents  The agents in order of priority
+     * @param control Cancellation and budget of the planning
+     * @return The routes of the agents
+     */
+    public MultiAgentPlanner.Plan planAgents(List<MultiAgentPlanner.Agent> agents, SearchControl control) {
+        this.refreshIfStale();
+        return new MultiAgentPlanner(this.maze, this.components, this.bitboard).plan(agents, control);
+    }
+
+    /**
+     * Choose the algorithm for a query from the statistics of the maze.
+     *
+     * Time complexity: O(1)
+     *
+     * @param options Options of the query
+     * @return The chosen algorithm and the reasons for choosing it
+     */
+    public SolverPlanner.Plan plan(SolveOptions options) {
+        return SolverPlanner.plan(this.statistics, this.treeIndex != null, this.costs != null, options);
+    }
+
+    private TraceBuffer solvePlanned(Coordinate start, Coordinate goal, SolveOptions options, SearchControl control) {
+        var plan = this.plan(options);
+        var trace = this.solve(plan.algorithm(), start, goal, options, control);
+        control.setSummary(control.getSummary() != null ? plan + ", " + control.getSummary() : plan.toString());
+        return trace;
+    }
+
+    /**
+     * Fill the dead ends of the maze between two endpoints. The filled maze is kept until the endpoints or the maze
+     * change.
+     *
+     * Time complexity: O(nm), O(1) if the endpoints are the same as the last time
+     * Where n is the height of the maze and m is the width of the maze.
+     *
+     * @param start Where to start in the maze
+     * @param goal  Where the goal is in the maze
+     * @return The filled maze, with a solver that shares the preprocessing of this solver
+     */
+    public FilledMaze fillDeadEnds(Coordinate start, Coordinate goal) {
+        var filled = this.filledMaze;
+        if (filled != null && filled.start().equals(start) && filled.goal().equals(goal))
+            return filled;
+
+        var result = DeadEndFilter.fill(this.maze, start, goal);
+        // Distances in the filled maze are never shorter, so the landmark estimates stay admissible
+        var solver = new MazeSolver();
+        solver.maze = result.maze();
+        solver.mazeHash = this.mazeHash;
+        solver.landmarks = this.landmarks;
+        solver.hierarchy = this.hierarchy;
+        solver.treeIndex = this.treeIndex;
+        solver.bitboard = new BitboardFloodFill(result.maze());
+        solver.components = this.components; // Filling a dead end never disconnects the rest of the maze
+        solver.statistics = this.statistics;
+        solver.costs = this.costs;
+        solver.terrain = new TerrainCostSearch(result.maze(), this.costs);
+        solver.fringe = new FringeSearch(result.maze());
+        filled = new FilledMaze(start, goal, solver, result.filledCells());
+        this.filledMaze = filled;
+        return filled;
     }
 
     /**
@@ -25,129 +358,240 @@ public class MazeSolver {
      * @return The results of the search
      */
     public Queue<MazeTraversalStep> aStar(Coordinate start, Coordinate goal, boolean greedy) {
+        return this.aStar(start, goal, greedy, SearchControl.unbounded());
+    }
 
-        var procedure = new HashMap<Coordinate, MazeTraversalStep>();
-        var cellPriorityQueue = new PriorityQueue<>( //The order to process the cells
-                Comparator.comparingInt(greedy ? MazeTraversalStep::getHeuristicsCost : MazeTraversalStep::totalCost));
-        int currentStepNumber = 0;
-        var startCell = new MazeTraversalStep(
-                currentStepNumber,
-                start,
-                null,
-                0,
-                calculateHeuristicsCost(start, goal),
-                Cell.START);
-
-        procedure.put(start, startCell); // O(1)
-        cellPriorityQueue.add(startCell); // O(1)
-        while (!cellPriorityQueue.isEmpty()) { // O(N)
-
-            currentStepNumber++;
-            var currentStep = cellPriorityQueue.poll(); // O(log N)
-            currentStep.setState(Cell.VISITED);
-
-            // We found the goal coordinate
-            if (currentStep.getLocation().equals(goal)) {
-                currentStep.setStepNumber(currentStepNumber);
-                procedure.put(currentStep.getLocation(), currentStep);
-                return parseResult(procedure);
-            }
-
-            // Process all neighbours
-            for (Coordinate neighbour : getNeighbours(currentStep.getLocation())) { // O(4)
-
-                if (maze[neighbour.row()][neighbour.col()] == Cell.WALL)
-                    continue;
+    /**
+     * Solve the maze using a greedy/normal version of the A* algorithm.
+     *
+     * @param start   Where to start in the maze
+     * @param goal    Where the goal is in the maze
+     * @param greedy  Run the algorithm with the priority queue sorted only based on heuristics
+     * @param control Cancellation and budget of the search
+     * @return The results of the search, only the visited cells if the search was stopped
+     */
+    public Queue<MazeTraversalStep> aStar(Coordinate start, Coordinate goal, boolean greedy, SearchControl control) {
+        return this.aStarTrace(start, goal, greedy, control, true).toSteps();
+    }
 
-                int estimatedCostToNeighbour = currentStep.getInitialCost() + 1;
-                // Get the neighbour cell step or create a new traversable step if it's not mapped yet
-                var neighbourCell = procedure.getOrDefault(neighbour, new MazeTraversalStep(
-                        currentStepNumber,
-                        neighbour,
-                        currentStep.getLocation(),
-                        Integer.MAX_VALUE,
-                        calculateHeuristicsCost(neighbour, goal),
-                        Cell.TRAVERSABLE));
-
-                // A shorter path to the neighbour has been found
-                if (estimatedCostToNeighbour < neighbourCell.getInitialCost()) {
-                    neighbourCell.setInitialCost(estimatedCostToNeighbour);
-                    procedure.put(neighbour, neighbourCell);
-
-                    // The neighbour has not been visited, queue it for processing
-                    if (!cellPriorityQueue.contains(neighbourCell))
-                        cellPriorityQueue.add(neighbourCell); // O(log N)
-                }
-            }
-        }
+    /**
+     * Solve the maze using weighted A*, where the heuristics cost is multiplied by epsilon.
+     * The path found is at most epsilon times longer than the optimal path, while a larger epsilon
+     * expands fewer cells.
+     *
+     * Time complexity: Worst case = O(N log N), Best case = O(1)
+     *
+     * @param start   Where to start in the maze
+     * @param goal    Where the goal is in the maze
+     * @param epsilon Weight of the heuristics cost, at least 1
+     * @param control Cancellation and budget of the search
+     * @return The results of the search, only the visited cells if the search was stopped
+     */
+    public Queue<MazeTraversalStep> weightedAStar(Coordinate start, Coordinate goal, double epsilon,
+                                                  SearchControl control) {
+        return this.weightedAStarTrace(start, goal, epsilon, control, true).toSteps();
+    }
 
-        return new LinkedList<>(); // No valid path found
+    private TraceBuffer weightedAStarTrace(Coordinate start, Coordinate goal, double epsilon, SearchControl control,
+                                           boolean detailed) {
+        if (epsilon < 1)
+            throw new IllegalArgumentException("epsilon must be at least 1, was " + epsilon);
+        return this.aStarSearch(start, goal, false, epsilon, Integer.MAX_VALUE, control, detailed).trace();
     }
 
     /**
-     * Calculate the manhattan distance from the start coordinate to the goal coordinate
+     * Solve the maze using anytime A*. Weighted A* is run with a decreasing epsilon, every run only accepting paths
+     * that are shorter than the best path so far. Every improved path is published to the control.
+     * The search ends when epsilon reaches 1 or a run proves that no shorter path exists, which means the last path
+     * is optimal, or when the control stops it.
      *
-     * @param start The starting coordinate
-     * @param goal  The goal coordinate
-     * @return The manhattan distance between two coordinates
+     * Time complexity: O(k N log N)
+     * Where k is the number of runs, at most log2(epsilon - 1) + 5.
+     *
+     * @param start          Where to start in the maze
+     * @param goal           Where the goal is in the maze
+     * @param initialEpsilon Weight of the heuristics cost in the first run, at least 1
+     * @param control        Cancellation and budget of the search, and the receiver of improved paths
+     * @return The results of the run that found the best path, or the visited cells if no path was found
      */
-    private int calculateHeuristicsCost(Coordinate start, Coordinate goal) {
-        return Math.abs(start.row() - goal.row()) + Math.abs(start.col() - goal.col());
+    public Queue<MazeTraversalStep> anytimeAStar(Coordinate start, Coordinate goal, double initialEpsilon,
+                                                 SearchControl control) {
+        return this.anytimeAStarTrace(start, goal, initialEpsilon, control, true).toSteps();
     }
 
+    private TraceBuffer anytimeAStarTrace(Coordinate start, Coordinate goal, double initialEpsilon,
+                                          SearchControl control, boolean detailed) {
+        if (initialEpsilon < 1)
+            throw new IllegalArgumentException("epsilon must be at least 1, was " + initialEpsilon);
+
+        SearchResult best = null;
+        double epsilon = initialEpsilon;
+        while (true) {
+            var result = this.aStarSearch(start, goal, false, epsilon,
+                    best == null ? Integer.MAX_VALUE : best.pathCost(), control, detailed);
+            if (result.pathCost() >= 0) {
+                best = result;
+                control.reportSolution(result.trace(), result.pathCost(), epsilon);
+            } else if (!control.isStopped()) {
+                // No shorter path exists, the best path so far is optimal (or there is no path at all)
+                if (best != null)
+                    control.reportSolution(best.trace(), best.pathCost(), 1);
+                return best == null ? result.trace() : best.trace();
+            }
+
+            if (epsilon <= 1 || control.isStopped())
+                return best == null ? result.trace() : best.trace();
+            epsilon = epsilon < 1.1 ? 1 : 1 + (epsilon - 1) / 2;
+        }
+    }
 
     /**
-     * Parse the results of the algorithm
+     * Best-first search used by all A* variants. The state of the search is kept in a pooled workspace, so the
+     * search allocates nothing but its result once the pooled workspaces have grown to the size of the maze.
      *
-     * Time complexity: O(N log N)
+     * Time complexity: Worst case = O(N log N), Best case = O(1)
      *
-     * @param procedure The search procedure
-     * @return Parsed steps of the algorithm
+     * @param start     Where to start in the maze
+     * @param goal      Where the goal is in the maze
+     * @param greedy    Process the cells only in the order of their heuristics cost
+     * @param epsilon   Weight of the heuristics cost, 1 for A*
+     * @param costBound Only paths cheaper than this are searched, neighbours that can't lead to one are skipped
+     * @param control   Cancellation and budget of the search
+     * @param detailed  Record the parent and the cost of every step
+     * @return The results of the search and the cost of the path, -1 if no path was found
      */
-    private LinkedList<MazeTraversalStep> parseResult(Map<Coordinate, MazeTraversalStep> procedure) {
-        var steps = new LinkedList<>(procedure.values()); // O(N)
-        steps.sort(Comparator.comparingInt(MazeTraversalStep::getStepNumber)); // O(N log N)
-        markCells(steps, procedure);
+    private SearchResult aStarSearch(Coordinate start, Coordinate goal, boolean greedy, double epsilon,
+                                     int costBound, SearchControl control, boolean detailed) {
+        int rows = this.maze.length;
+        int cols = this.maze[0].length;
+        if (!this.isConnected(start, goal))
+            return new SearchResult(new TraceBuffer(rows, cols, detailed), -1);
+
+        var workspace = SearchWorkspace.acquire();
+        try {
+            workspace.reset(rows * cols); // O(1)
+            int startCell = start.row() * cols + start.col();
+            int goalCell = goal.row() * cols + goal.col();
+            int startEstimate = this.calculateHeuristicsCost(startCell, goalCell);
+            workspace.reach(startCell, 0, startEstimate, SearchWorkspace.NO_PARENT);
+            workspace.push(startCell, greedy ? startEstimate : epsilon * startEstimate);
+            for (int cell = workspace.poll(); cell >= 0; cell = workspace.poll()) { // O(N log N)
+
+                if (control.checkpoint())
+                    return new SearchResult(this.workspaceTrace(workspace, goalCell, false, detailed), -1);
+                workspace.setFlag(cell, SearchWorkspace.EXPANDED);
 
-        return steps;
+                // We found the goal coordinate
+                if (cell == goalCell)
+                    return new SearchResult(this.workspaceTrace(workspace, goalCell, true, detailed),
+                            workspace.getCost(cell));
+
+                // Process all neighbours
+                int row = cell / cols;
+                int col = cell % cols;
+                int neighbourCost = workspace.getCost(cell) + 1;
+                for (int direction = 0; direction < 4; direction++) { // O(4)
+                    int neighbourRow = row + (direction == 0 ? -1 : direction == 1 ? 1 : 0);
+                    int neighbourCol = col + (direction == 2 ? -1 : direction == 3 ? 1 : 0);
+                    if (neighbourRow < 0 || neighbourRow >= rows || neighbourCol < 0 || neighbourCol >= cols
+                            || this.maze[neighbourRow][neighbourCol] == Cell.WALL)
+                        continue;
+                    int neighbour = neighbourRow * cols + neighbourCol;
+                    int estimate = workspace.isReached(neighbour) ? workspace.getEstimate(neighbour)
+                            : this.calculateHeuristicsCost(neighbour, goalCell);
+
+                    // The neighbour can't be part of a path cheaper than the bound
+                    if (neighbourCost + estimate >= costBound)
+                        continue;
+
+                    // A shorter path to the neighbour has been found, its older queue entry is skipped when polled
+                    if (neighbourCost < workspace.getCost(neighbour)) {
+                        workspace.reach(neighbour, neighbourCost, estimate, cell);
+                        workspace.push(neighbour, greedy ? estimate : neighbourCost + epsilon * estimate); // O(log N)
+                    }
+                }
+            }
+
+            return new SearchResult(new TraceBuffer(rows, cols, detailed), -1); // No valid path found
+        } finally {
+            SearchWorkspace.release(workspace);
+        }
     }
 
     /**
-     * Mark the visited cells contributing to the path as Cell.PATH, and all others as Cell.DEAD_END
+     * Record the cells reached by a search in the order they were first reached, the goal last if it was found.
+     * The cells of the path are marked Cell.PATH, the other expanded cells Cell.DEAD_END, or Cell.VISITED if the
+     * goal wasn't found, and the cells that were only queued Cell.TRAVERSABLE. Every step but the start keeps its
+     * parent, so a replay counts the cells of the path as search steps.
      *
-     * @param steps     The steps of the algorithm
-     * @param procedure The search procedure
+     * Time complexity: O(N)
+     *
+     * @param workspace The workspace of the search
+     * @param goalCell  Index of the goal
+     * @param found     true if the goal was expanded
+     * @param detailed  Also record the cost of reaching every step
+     * @return The steps of the search
      */
-    private void markCells(LinkedList<MazeTraversalStep> steps, Map<Coordinate, MazeTraversalStep> procedure) {
-        var pathStep = steps.getLast();
-        while (pathStep != null) { // O(N)
-            pathStep.setState(Cell.PATH);
-            pathStep = procedure.get(pathStep.getParentLocation());
+    private TraceBuffer workspaceTrace(SearchWorkspace workspace, int goalCell, boolean found, boolean detailed) {
+        int cols = this.maze[0].length;
+        var trace = new TraceBuffer(this.maze.length, cols, detailed);
+        if (found)
+            for (int cell = goalCell; cell != SearchWorkspace.NO_PARENT; cell = workspace.getParent(cell)) // O(p)
+                workspace.setFlag(cell, SearchWorkspace.ON_PATH);
+        for (int i = 0; i < workspace.getDiscoveredCount(); i++) { // O(N)
+            int cell = workspace.getDiscovered(i);
+            if (found && cell == goalCell)
+                continue;
+            Cell state;
+            if (workspace.hasFlag(cell, SearchWorkspace.ON_PATH))
+                state = Cell.PATH;
+            else if (workspace.hasFlag(cell, SearchWorkspace.EXPANDED))
+                state = found ? Cell.DEAD_END : Cell.VISITED;
+            else
+                state = Cell.TRAVERSABLE;
+            trace.add(cell / cols, cell % cols, state, workspace.getParent(cell), workspace.getCost(cell));
         }
-        for (MazeTraversalStep step : steps) // O(N)
-            if (step.getState() == Cell.VISITED)
-                step.setState(Cell.DEAD_END);
+        if (found)
+            trace.add(goalCell / cols, goalCell % cols, Cell.PATH, workspace.getParent(goalCell),
+                    workspace.getCost(goalCell));
+        return trace;
     }
 
     /**
-     * Extract the location of all neighbours
+     * Solve the maze using A* and record the result as a packed trace.
      *
-     * @param location Coordinate to find neighbours for
-     * @return List of all neighbours
+     * @param start  Where to start in the maze
+     * @param goal   Where the goal is in the maze
+     * @param greedy Run the algorithm with the priority queue sorted only based on heuristics
+     * @return The results of the search
      */
-    private List<Coordinate> getNeighbours(Coordinate location) {
-        List<Coordinate> neighbours = new ArrayList<>();
-        if (location.row() > 0)
-            neighbours.add(new Coordinate(location.row() - 1, location.col()));
-        if (location.row() < maze.length - 1)
-            neighbours.add(new Coordinate(location.row() + 1, location.col()));
-        if (location.col() > 0)
-            neighbours.add(new Coordinate(location.row(), location.col() - 1));
-        if (location.col() < maze[0].length - 1)
-            neighbours.add(new Coordinate(location.row(), location.col() + 1));
-        return neighbours;
+    public TraceBuffer aStarTrace(Coordinate start, Coordinate goal, boolean greedy) {
+        return this.aStarTrace(start, goal, greedy, SearchControl.unbounded(), false);
+    }
+
+    private TraceBuffer aStarTrace(Coordinate start, Coordinate goal, boolean greedy, SearchControl control,
+                                   boolean detailed) {
+        return this.aStarSearch(start, goal, greedy, 1, Integer.MAX_VALUE, control, detailed).trace();
     }
 
+    /**
+     * Estimate the distance from the start coordinate to the goal coordinate, the largest of the manhattan distance
+     * and the landmark estimate. Both never overestimate, so neither does the largest of them.
+     *
+     * Time complexity: O(k)
+     * Where k is the number of landmarks.
+     *
+     * @param start The starting coordinate
+     * @param goal  The goal coordinate
+     * @return A lower bound of the distance between two coordinates
+     */
+    private int calculateHeuristicsCost(int start, int goal) {
+        int cols = this.maze[0].length;
+        int manhattan = Math.abs(start / cols - goal / cols) + Math.abs(start % cols - goal % cols);
+        return this.landmarks == null ? manhattan : Math.max(manhattan, this.landmarks.estimate(start, goal));
+    }
+
+
     /**
      * Dijkstra's algorithm using a priority queue and graph.
      * Time complexity: O((v+e) log v)
@@ -157,7 +601,68 @@ public class MazeSolver {
      * @return A queue containing all steps taken to find the final path and each cell traversed in the final path.
      */
     public Queue<MazeTraversalStep> dijkstra1(Coordinate start, Coordinate finish) {
-        Queue<MazeTraversalStep> allSteps = new ArrayDeque<>();
+        return this.dijkstra1Trace(start, finish, SearchControl.unbounded(), true).toSteps();
+    }
+
+    /**
+     * Dijkstra's algorithm using a priority queue and graph, recording the steps as a packed trace.
+     * Time complexity: O((v+e) log v)
+     * Where v is vertices, e is edges.
+     * @param start  Coordinate to start at
+     * @param finish Coordinate to finish at
+     * @return A trace containing all steps taken to find the final path and each cell traversed in the final path.
+     */
+    public TraceBuffer dijkstra1Trace(Coordinate start, Coordinate finish) {
+        return this.dijkstra1Trace(start, finish, SearchControl.unbounded(), false);
+    }
+
+    private TraceBuffer dijkstra1Trace(Coordinate start, Coordinate finish, SearchControl control, boolean detailed) {
+        TraceBuffer allSteps = new TraceBuffer(this.maze.length, this.maze[0].length, detailed);
+        if (!this.isConnected(start, finish))
+            return allSteps;
+        Map<Coordinate, Coordinate> previous = this.dijkstra1Search(start, finish, allSteps, control);
+
+        // Generate final path by backtracking from finish to start
+        if (!control.isStopped() && previous.containsKey(finish)) {
+            connectFinishingPath(finish, allSteps, previous); // Time complexity: O(v)
+        }
+        return allSteps;
+    }
+
+    /**
+     * The path of Dijkstra's algorithm using a priority queue and graph, as the straight runs between the nodes of
+     * the graph instead of a step per cell. The cells are only expanded when the path is iterated.
+     * Time complexity: O((v+e) log v)
+     * Where v is vertices, e is edges.
+     * @param start   Coordinate to start at
+     * @param finish  Coordinate to finish at
+     * @param control Cancellation and budget of the search
+     * @return The path from start to finish, or null if there is none or the search was stopped
+     */
+    public PathSegments dijkstraSegments(Coordinate start, Coordinate finish, SearchControl control) {
+        if (!this.isConnected(start, finish))
+            return null;
+        Map<Coordinate, Coordinate> previous = this.dijkstra1Search(start, finish, null, control);
+        if (control.isStopped() || !previous.containsKey(finish) && !start.equals(finish))
+            return null;
+
+        List<Coordinate> nodes = new ArrayList<>(); // Nodes of the path from finish to start
+        for (Coordinate pos = finish; pos != null; pos = previous.get(pos)) // O(v)
+            nodes.add(pos);
+        PathSegments path = new PathSegments(this.maze.length, this.maze[0].length, start);
+        for (int i = nodes.size() - 2; i >= 0; i--) // O(v)
+            path.add(nodes.get(i));
+        return path;
+    }
+
+    /**
+     * Search the graph of the maze from start until finish is reached.
+     * Time complexity: O((v+e) log v)
+     * @param allSteps trace to add the searched nodes to, or null to not record them
+     * @return map containing the path taken between nodes
+     */
+    private Map<Coordinate, Coordinate> dijkstra1Search(Coordinate start, Coordinate finish, TraceBuffer allSteps,
+                                                        SearchControl control) {
         // Map to store total cost/weight/distance of all searched nodes.
         // The Coordinate is one of the nodes and the integer is the distance traveled from start to that node in a
         // straight path.
@@ -165,7 +670,7 @@ public class MazeSolver {
         Map<Coordinate, Coordinate> previous = new HashMap<>(); // Map containing the path taken between nodes
         // PriorityQueue used to keep track of next least expensive path to take.
         Queue<Coordinate> priorityQueue = new PriorityQueue<>(Comparator.comparingInt(a -> distance.getOrDefault(a, Integer.MAX_VALUE)));
-        HashMap<Coordinate, Node> graph = generateGraph(start, finish); // Weighed graph of the maze. Time complexity: O(v)
+        HashMap<Coordinate, Node> graph = generateGraph(start, finish, control); // Weighed graph of the maze. Time complexity: O(v)
 
         // Initialize distance to all nodes to infinity, except for start node which is 0
         for (Coordinate coordinate : graph.keySet()) { // Time complexity: O(v)
@@ -176,8 +681,10 @@ public class MazeSolver {
         }
 
         while (!priorityQueue.isEmpty()) { // O((e+v) log v)
+            if (control.checkpoint())
+                break;
             Coordinate current = priorityQueue.poll(); // O(log v)
-            if (markAndStoreStep(start, finish, allSteps, current)) {
+            if (markAndStoreStep(start, finish, allSteps, current, previous.get(current), distance.get(current))) {
                 break;
             }
 
@@ -195,12 +702,7 @@ public class MazeSolver {
                 }
             }
         }
-
-        // Generate final path by backtracking from finish to start
-        if (previous.containsKey(finish)) {
-            connectFinishingPath(finish, allSteps, previous); // Time complexity: O(v)
-        }
-        return allSteps;
+        return previous;
     }
 
     /**
@@ -212,14 +714,32 @@ public class MazeSolver {
      * @return A queue containing all steps taken to find the final path and each cell traversed in the final path.
      */
     public Queue<MazeTraversalStep> dijkstra2(Coordinate start, Coordinate finish) {
-        Queue<MazeTraversalStep> allSteps = new ArrayDeque<>();
+        return this.dijkstra2Trace(start, finish).toSteps();
+    }
+
+    /**
+     * Dijkstra's algorithm using an arrayList, recording the steps as a packed trace.
+     * Time complexity: O(v^2+e)
+     * Where v is vertices and e is edges.
+     * @param start  Coordinate to start at
+     * @param finish Coordinate to finish at
+     * @return A trace containing all steps taken to find the final path and each cell traversed in the final path.
+     */
+    public TraceBuffer dijkstra2Trace(Coordinate start, Coordinate finish) {
+        return this.dijkstra2Trace(start, finish, SearchControl.unbounded());
+    }
+
+    private TraceBuffer dijkstra2Trace(Coordinate start, Coordinate finish, SearchControl control) {
+        TraceBuffer allSteps = new TraceBuffer(this.maze.length, this.maze[0].length, false);
+        if (!this.isConnected(start, finish))
+            return allSteps;
         // Map to store total cost/weight/distance of all searched nodes.
         // The Coordinate is one of the nodes and the integer is the distance traveled from start to that node in a
         // straight path.
         Map<Coordinate, Integer> distance = new HashMap<>();
         Map<Coordinate, Coordinate> previous = new HashMap<>(); // Map containing the path taken between nodes
         List<Coordinate> nodeList = new ArrayList<>(); // List containing nodes
-        HashMap<Coordinate, Node> graph = generateGraph(start, finish); // O(v)
+        HashMap<Coordinate, Node> graph = generateGraph(start, finish, control); // O(v)
 
         // Initialize distance to all nodes to infinity, except for start node which is 0
         // Also add all nodes to list
@@ -229,6 +749,8 @@ public class MazeSolver {
         }
 
         while (!nodeList.isEmpty()) { // O(v^2+e)
+            if (control.checkpoint())
+                break;
             Coordinate current = null;
             int smallestDistance = Integer.MAX_VALUE;
 
@@ -261,7 +783,7 @@ public class MazeSolver {
         }
 
         // Generate final path by backtracking from finish to start
-        if (previous.containsKey(finish)) {
+        if (!control.isStopped() && previous.containsKey(finish)) {
             connectFinishingPath(finish, allSteps, previous); // O(v)
         }
         return allSteps;
@@ -272,34 +794,42 @@ public class MazeSolver {
      * Time complexity: O(1)
      * @param start start coordinate
      * @param finish finish coordinate
-     * @param allSteps queue to add the step
+     * @param allSteps trace to add the step to, or null to only check for finish
      * @param current current coordinate to include in step
      * @return true if current is equal to finish, else false.
      */
-    private boolean markAndStoreStep(Coordinate start, Coordinate finish, Queue<MazeTraversalStep> allSteps, Coordinate current) {
-        MazeTraversalStep step;
-        if (current.equals(finish)) {
-            step = new MazeTraversalStep(current, Cell.FINISH);
-            allSteps.add(step);
-            return true;
-        } else if (current.equals(start)) {
-            step = new MazeTraversalStep(current, Cell.START);
-        } else {
-            step = new MazeTraversalStep(current, Cell.VISITED);
-        }
-        allSteps.add(step);
-        return false;
+    private boolean markAndStoreStep(Coordinate start, Coordinate finish, TraceBuffer allSteps, Coordinate current) {
+        return this.markAndStoreStep(start, finish, allSteps, current, null, 0);
     }
 
     /**
-     * Add all steps traveled from finish to start to the allSteps queue.
+     * Stores the current step with state based on location, and the node it was reached from and its distance from
+     * the start if the trace is detailed.
+     * Time complexity: O(1)
+     * @param parent   node the current node was reached from, or null for the start
+     * @param distance distance from the start to the current node
+     * @return true if current is equal to finish, else false.
+     */
+    private boolean markAndStoreStep(Coordinate start, Coordinate finish, TraceBuffer allSteps, Coordinate current,
+                                     Coordinate parent, int distance) {
+        if (allSteps == null)
+            return current.equals(finish);
+        Cell state = current.equals(finish) ? Cell.FINISH : current.equals(start) ? Cell.START : Cell.VISITED;
+        int parentIndex = parent == null || !allSteps.isDetailed() ? -1
+                : parent.row() * allSteps.getCols() + parent.col();
+        allSteps.add(current.row(), current.col(), state, parentIndex, distance);
+        return state == Cell.FINISH;
+    }
+
+    /**
+     * Add all steps traveled from finish to start to the allSteps trace.
      * Time complexity: O(nm)
      * Where n is the height of the maze and m is the width of the maze.
      * @param finish   finish coordinate
-     * @param allSteps queue to add the steps to
+     * @param allSteps trace to add the steps to
      * @param previous map containing the path taken between nodes (in order to backtrack from finish to start)
      */
-    private static void connectFinishingPath(Coordinate finish, Queue<MazeTraversalStep> allSteps, Map<Coordinate, Coordinate> previous) {
+    private static void connectFinishingPath(Coordinate finish, TraceBuffer allSteps, Map<Coordinate, Coordinate> previous) {
         Coordinate pos = finish;
         while (pos != null) { // Time complexity: O(nm)
             // Generate MazeTraversalStep for each coordinate in the final path
@@ -312,12 +842,12 @@ public class MazeSolver {
                     if (prevCol < newCol) {
                         // Moving right
                         for (int col = prevCol; col <= newCol; col++) { // Time complexity: O(m)
-                            allSteps.add(new MazeTraversalStep(new Coordinate(pos.row(), col), Cell.PATH));
+                            allSteps.add(pos.row(), col, Cell.PATH);
                         }
                     } else {
                         // Moving left
                         for (int col = prevCol; col >= newCol; col--) { // Time complexity: O(m)
-                            allSteps.add(new MazeTraversalStep(new Coordinate(pos.row(), col), Cell.PATH));
+                            allSteps.add(pos.row(), col, Cell.PATH);
                         }
                     }
                 } else { // Moving vertically
@@ -326,12 +856,12 @@ public class MazeSolver {
                     if (prevRow < newRow) {
                         // Moving down
                         for (int row = prevRow; row <= newRow; row++) { // Time complexity: O(n)
-                            allSteps.add(new MazeTraversalStep(new Coordinate(row, pos.col()), Cell.PATH));
+                            allSteps.add(row, pos.col(), Cell.PATH);
                         }
                     } else {
                         // Moving up
                         for (int row = prevRow; row >= newRow; row--) { // Time complexity: O(n)
-                            allSteps.add(new MazeTraversalStep(new Coordinate(row, pos.col()), Cell.PATH));
+                            allSteps.add(row, pos.col(), Cell.PATH);
                         }
                     }
                 }
@@ -347,14 +877,15 @@ public class MazeSolver {
      * Where n is the height of the maze and m is the width of the maze.
      * @param start  force insertion of a node at start
      * @param finish force insertion of a node at finish
+     * @param control stops building the graph early if the search was cancelled
      * @return graph representation of the maze
      */
-    private HashMap<Coordinate, Node> generateGraph(Coordinate start, Coordinate finish) {
+    private HashMap<Coordinate, Node> generateGraph(Coordinate start, Coordinate finish, SearchControl control) {
         Coordinate current;
         HashMap<Coordinate, Node> graph = new HashMap<>();
         int rows = this.maze.length;
         int cols = this.maze[0].length;
-        for (int i = 0; i < rows; i++) { // Time complexity: O(n(n+m))
+        for (int i = 0; i < rows && !control.isCancelled(); i++) { // Time complexity: O(n(n+m))
             for (int j = 0; j < cols; j++) { // Time complexity: O(n+m)
                 if (maze[i][j] == Cell.WALL) {
                     continue;
@@ -425,4 +956,108 @@ public class MazeSolver {
 
     record Node(Map<Coordinate, Integer> neighbor, Coordinate position) {}
 
+    /**
+     * Time complexity: O(nm)
+     * Where n is the height of the maze and m is the width of the maze.
+     */
+    private MazeStatistics computeStatistics() {
+        int rows = this.maze.length;
+        int cols = this.maze[0].length;
+        var counts = new long[4];
+        for (int row = 0; row < rows; row++) // O(nm)
+            for (int col = 0; col < cols; col++)
+                this.countCell(row, col, counts);
+        return new MazeStatistics(rows, cols, counts[0], counts[1], counts[2], this.components.getComponentCount(),
+                counts[3]);
+    }
+
+    /**
+     * Count the cells whose statistics depend on a cell, the cell and the cells next to it.
+     *
+     * Time complexity: O(1)
+     *
+     * @return The open cells, junctions, edges and room cells counted by the 3x3 cells around the cell
+     */
+    private long[] countCellsAround(int row, int col) {
+        var counts = new long[4];
+        for (int r = Math.max(0, row - 1); r <= Math.min(this.maze.length - 1, row + 1); r++)
+            for (int c = Math.max(0, col - 1); c <= Math.min(this.maze[0].length - 1, col + 1); c++)
+                this.countCell(r, c, counts);
+        return counts;
+    }
+
+    /**
+     * Add what a cell counts to the open cells, junctions, edges (to the cells below and to the right) and room cells.
+     */
+    private void countCell(int row, int col, long[] counts) {
+        if (this.maze[row][col] == Cell.WALL)
+            return;
+        counts[0]++;
+        if (this.shouldStoreNode(new Coordinate(row, col), null, null))
+            counts[1]++;
+        if (row + 1 < this.maze.length && this.maze[row + 1][col] != Cell.WALL)
+            counts[2]++;
+        if (col + 1 < this.maze[0].length && this.maze[row][col + 1] != Cell.WALL)
+            counts[2]++;
+        if (this.isInRoom(row, col))
+            counts[3]++;
+    }
+
+    /**
+     * @return true if the open cell is a corner of a 2x2 block of open cells
+     */
+    private boolean isInRoom(int row, int col) {
+        for (int dr = -1; dr <= 0; dr++)
+            for (int dc = -1; dc <= 0; dc++) {
+                int top = row + dr;
+                int left = col + dc;
+                if (top >= 0 && left >= 0 && top + 1 < this.maze.length && left + 1 < this.maze[0].length
+                        && this.maze[top][left] != Cell.WALL && this.maze[top + 1][left] != Cell.WALL
+                        && this.maze[top][left + 1] != Cell.WALL && this.maze[top + 1][left + 1] != Cell.WALL)
+                    return true;
+            }
+        return false;
+    }
+
+    /**
+     * The hash getMazeHash returns once the maze is set, computed without preprocessing the maze.
+     *
+     * Time complexity: O(nm)
+     *
+     * @param maze  The maze
+     * @param costs Cost of every cell, or null
+     * @return A hash of the walls and the costs of the maze
+     */
+    public static long mazeHash(Cell[][] maze, byte[] costs) {
+        return contentHash(maze) * 31 + Arrays.hashCode(costs);
+    }
+
+    /**
+     * Time complexity: O(log exponent)
+     *
+     * @return base to the power of exponent, wrapping around like the hash
+     */
+    private static long power(long base, long exponent) {
+        long result = 1;
+        for (; exponent > 0; exponent >>= 1, base *= base)
+            if ((exponent & 1) != 0)
+                result *= base;
+        return result;
+    }
+
+    /**
+     * Time complexity: O(nm)
+     */
+    private static long contentHash(Cell[][] maze) {
+        long hash = maze.length * 31L + maze[0].length;
+        for (Cell[] row : maze)
+            for (Cell cell : row)
+                hash = hash * 31 + (cell == Cell.WALL ? 1 : 2);
+        return hash;
+    }
+
+    public record FilledMaze(Coordinate start, Coordinate goal, MazeSolver solver, long filledCells) {}
+
+    private record SearchResult(TraceBuffer trace, int pathCost) {}
+
 }
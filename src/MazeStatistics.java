@@ -0,0 +1,49 @@
+/**
+ * Cheap statistics of the shape of a maze, computed once per maze and used to choose a solver.
+ *
+ * @param rows         Height of the maze
+ * @param cols         Width of the maze
+ * @param openCells    Number of cells that are not walls
+ * @param junctions    Number of open cells that are not inside a straight corridor, the nodes of the Dijkstra graph
+ * @param edges        Number of pairs of neighbouring open cells
+ * @param components   Number of connected regions of open cells
+ * @param roomCells    Number of open cells in a 2x2 block of open cells
+ */
+public record MazeStatistics(int rows, int cols, long openCells, long junctions, long edges, int components,
+                             long roomCells) {
+
+    /**
+     * @return Number of independent cycles, E - V + C, 0 for perfect mazes
+     */
+    public long cycles() {
+        return this.edges - this.openCells + this.components;
+    }
+
+    /**
+     * @return Fraction of the open cells that are junctions
+     */
+    public double junctionDensity() {
+        return this.openCells == 0 ? 0 : (double) this.junctions / this.openCells;
+    }
+
+    /**
+     * @return Average number of open cells per junction
+     */
+    public double averageCorridorLength() {
+        return this.junctions == 0 ? 0 : (double) this.openCells / this.junctions;
+    }
+
+    /**
+     * @return Fraction of the open cells that are part of open rooms rather than corridors
+     */
+    public double roomFraction() {
+        return this.openCells == 0 ? 0 : (double) this.roomCells / this.openCells;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d, %,d open cells, %,d cycles, %.1f cells per junction, %.0f%% rooms",
+                this.rows, this.cols, this.openCells, this.cycles(), this.averageCorridorLength(),
+                this.roomFraction() * 100);
+    }
+}
@@ -43,6 +43,10 @@ public class MazeTraversalStep {
         return parentLocation;
     }
 
+    public void setParentLocation(Coordinate parentLocation) {
+        this.parentLocation = parentLocation;
+    }
+
     public void setInitialCost(int initialCost) {
         this.initialCost = initialCost;
     }
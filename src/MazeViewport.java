@@ -0,0 +1,671 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A zoomable and pannable view of a maze.
+ * The maze is split into square tiles of TILE_PIXELS pixels. Rendered tiles are kept in a bounded LRU cache, so the
+ * memory used for painting depends on the cache size and not on the size of the maze.
+ * Changing a cell only updates and repaints the tile the cell belongs to.
+ * Changed cells are stored in an overlay stamped with a generation number, an overlay entry is only used if its stamp
+ * matches the current generation. This makes clearing every change a single increment of the generation.
+ * Zoomed out below one pixel per cell, a pixel shows the most prominent state of the block of cells under it. The
+ * blocks are kept in a pyramid where every level halves the resolution of the level below, built when it is first
+ * needed, so a changed cell only updates one entry per level. The changed cells of the current generation are listed,
+ * so clearing them updates only their blocks.
+ * Whether a block holds a cell of the reachable region is read from a second pyramid with the label of the region of
+ * every block, or MIXED_LABELS if it holds cells of several, so choosing another start repaints without touching it.
+ */
+public class MazeViewport extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+    private static final int TILE_PIXELS = 256;
+    private static final int MAX_ZOOM_LEVEL = 5; // 32 pixels per cell
+    private static final int MIN_ZOOM_LEVEL = -10; // 1024 * 1024 cells per pixel
+    private static final int MAX_CACHED_TILES = 128; // 128 * 256 * 256 * 4 bytes = 32 MB
+    private static final int CLICK_TOLERANCE = 4;
+    private static final Color BACKGROUND_COLOR = Color.DARK_GRAY;
+    private static final Color UNREACHABLE_COLOR = Color.LIGHT_GRAY;
+    private static final Cell[] STATES = Cell.values();
+    private static final byte UNREACHABLE = (byte) STATES.length; // Display code of an open cell that can't be reached
+    private static final int MIXED_LABELS = ComponentLabels.NO_COMPONENT - 1; // A block with cells of several regions
+    private static final int[] PALETTE = createPalette();
+    // Display codes by how prominent they are when many cells share a pixel, the search on top of the maze
+    private static final int[] PROMINENCE = createProminence();
+
+    private final Dimension preferredSize;
+    private final Map<Long, BufferedImage> tileCache = new LinkedHashMap<>(MAX_CACHED_TILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MAX_CACHED_TILES;
+        }
+    };
+    private Cell[][] maze;
+    private byte[] overlayStates;
+    private int[] overlayGenerations;
+    private int generation;
+    private int zoomLevel;
+    private int offsetX;
+    private int offsetY;
+    private final Rectangle dirtyRegion = new Rectangle(); // Reused, a replay updates many cells per frame
+    private boolean dirty;
+    private int[] changedCells = new int[64]; // The cells changed in the current generation, by index
+    private int changedCount;
+    private byte[][] blockLevels; // Level k holds the state of every block of 2^k by 2^k cells, level 0 unused
+    private int[][] blockLabels; // Level k holds the label of every block of 2^k by 2^k cells, level 0 unused
+    private ComponentLabels blockLabelsOf; // The labels blockLabels was built from
+    private int blockLabelsUpdate; // The update of the labels blockLabels has seen
+    private ComponentLabels components;
+    private int reachableUpdate; // The update of the labels the tiles were rendered with
+    private int reachableLabel = ComponentLabels.NO_COMPONENT;
+    private Consumer<Coordinate> cellClickListener;
+
+    MazeViewport(final Dimension preferredSize) {
+        this.preferredSize = preferredSize;
+        this.setOpaque(true);
+        this.initMouseListeners();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(this.preferredSize);
+    }
+
+    public void setCellClickListener(Consumer<Coordinate> listener) {
+        this.cellClickListener = listener;
+    }
+
+    /**
+     * Display a new maze, zoomed so that the whole maze fits if possible.
+     *
+     * @param maze The maze to display, it is not modified, changes to it are shown with refreshCell
+     */
+    public void setMaze(Cell[][] maze) {
+        this.maze = maze;
+        this.overlayStates = new byte[maze.length * maze[0].length];
+        this.overlayGenerations = new int[maze.length * maze[0].length];
+        this.generation = 1;
+        this.components = null;
+        this.reachableLabel = ComponentLabels.NO_COMPONENT;
+        this.changedCount = 0;
+        this.blockLevels = null;
+        this.blockLabels = null;
+        this.blockLabelsOf = null;
+
+        int width = this.getWidth() > 0 ? this.getWidth() : this.preferredSize.width;
+        int height = this.getHeight() > 0 ? this.getHeight() : this.preferredSize.height;
+        this.zoomLevel = 0;
+        while (this.zoomLevel < MAX_ZOOM_LEVEL
+                && scale(maze[0].length, this.zoomLevel + 1) <= width
+                && scale(maze.length, this.zoomLevel + 1) <= height)
+            this.zoomLevel++;
+        while (this.zoomLevel > MIN_ZOOM_LEVEL
+                && (scale(maze[0].length, this.zoomLevel) > width || scale(maze.length, this.zoomLevel) > height))
+            this.zoomLevel--;
+        this.offsetX = (int) ((width - scale(maze[0].length, this.zoomLevel)) / 2);
+        this.offsetY = (int) ((height - scale(maze.length, this.zoomLevel)) / 2);
+
+        this.tileCache.clear();
+        this.repaint();
+    }
+
+    /**
+     * Change the displayed state of a single cell. Only the tile containing the cell is updated and repainted.
+     *
+     * Time complexity: O(1)
+     *
+     * @param location The cell to change
+     * @param state    The new state of the cell
+     */
+    public void setCell(Coordinate location, Cell state) {
+        this.updateCell(location, state);
+        this.flushRepaint();
+    }
+
+    /**
+     * Change the displayed state of a single cell without repainting it. The tile containing the cell is added to
+     * the dirty region, which is repainted by the next call to flushRepaint. Used to coalesce many changes into a
+     * single repaint.
+     *
+     * Time complexity: O(1)
+     *
+     * @param location The cell to change
+     * @param state    The new state of the cell
+     */
+    public void updateCell(Coordinate location, Cell state) {
+        this.updateCell(location.row(), location.col(), state);
+    }
+
+    /**
+     * Change the displayed state of a single cell without repainting it.
+     *
+     * @param row   Row of the cell to change
+     * @param col   Column of the cell to change
+     * @param state The new state of the cell
+     */
+    public void updateCell(int row, int col, Cell state) {
+        if (this.getCell(row, col) == state)
+            return;
+        int index = row * this.maze[0].length + col;
+        if (this.overlayGenerations[index] != this.generation) {
+            if (this.changedCount == this.changedCells.length)
+                this.changedCells = Arrays.copyOf(this.changedCells, this.changedCount * 2);
+            this.changedCells[this.changedCount++] = index;
+        }
+        this.overlayStates[index] = (byte) state.ordinal();
+        this.overlayGenerations[index] = this.generation;
+        this.updateBlocks(row, col);
+
+        int tileCells = this.tileCells();
+        int tileRow = row / tileCells;
+        int tileCol = col / tileCells;
+        var tile = this.tileCache.get(tileKey(tileRow, tileCol));
+        if (tile != null)
+            this.fillCell(tile, row, col);
+
+        int x = this.offsetX + tileCol * TILE_PIXELS;
+        int y = this.offsetY + tileRow * TILE_PIXELS;
+        if (!this.dirty)
+            this.dirtyRegion.setBounds(x, y, TILE_PIXELS, TILE_PIXELS);
+        else
+            this.dirtyRegion.add(x, y); // Grows to the corners instead of allocating a rectangle for the tile
+        this.dirtyRegion.add(x + TILE_PIXELS, y + TILE_PIXELS);
+        this.dirty = true;
+    }
+
+    /**
+     * Show the state of a cell after it was changed in the maze itself, dropping its displayed change.
+     *
+     * Time complexity: O(1)
+     *
+     * @param location The cell that changed in the maze
+     */
+    public void refreshCell(Coordinate location) {
+        this.overlayGenerations[location.row() * this.maze[0].length + location.col()] = 0;
+        this.updateBlocks(location.row(), location.col());
+        int tileCells = this.tileCells();
+        int tileRow = location.row() / tileCells;
+        int tileCol = location.col() / tileCells;
+        this.tileCache.remove(tileKey(tileRow, tileCol)); // Rendered again when painted
+        this.repaint(this.offsetX + tileCol * TILE_PIXELS, this.offsetY + tileRow * TILE_PIXELS, TILE_PIXELS,
+                TILE_PIXELS);
+    }
+
+    /**
+     * Restore every changed cell to its state in the maze.
+     *
+     * Time complexity: O(c log(max(n, m))) where c is the number of cells changed since the last reset
+     */
+    public void resetOverlay() {
+        if (this.maze == null)
+            return;
+        if (++this.generation == Integer.MAX_VALUE) { // Stamps from old generations could match again after overflow
+            Arrays.fill(this.overlayGenerations, 0);
+            this.generation = 1;
+        }
+        int cols = this.maze[0].length;
+        for (int i = 0; i < this.changedCount; i++) // O(c log(max(n, m)))
+            this.updateBlocks(this.changedCells[i] / cols, this.changedCells[i] % cols);
+        this.changedCount = 0;
+        this.tileCache.clear();
+        this.dirty = false;
+        this.repaint();
+    }
+
+    /**
+     * Grey out the open cells that can't be reached from a cell.
+     *
+     * Time complexity: O(1), the tiles are rendered again when painted
+     *
+     * @param components The connected regions of the displayed maze
+     * @param source     The cell to show the reachable cells of, null to show every cell as reachable
+     */
+    public void setReachableFrom(ComponentLabels components, Coordinate source) {
+        int label = components == null || source == null ? ComponentLabels.NO_COMPONENT : components.getLabel(source);
+        int update = components == null ? 0 : components.getUpdateCount();
+        if (label == this.reachableLabel && components == this.components && update == this.reachableUpdate)
+            return; // Otherwise cells may have left or joined the reachable region
+        this.components = components;
+        this.reachableLabel = label;
+        this.reachableUpdate = update;
+        this.tileCache.clear();
+        this.repaint();
+    }
+
+    /**
+     * Get the displayed state of a cell, the overlay state if it was changed in the current generation.
+     */
+    private Cell getCell(int row, int col) {
+        int index = row * this.maze[0].length + col;
+        return this.overlayGenerations[index] == this.generation ? STATES[this.overlayStates[index]] : this.maze[row][col];
+    }
+
+    /**
+     * Repaint the tiles changed by updateCell since the last flush.
+     */
+    public void flushRepaint() {
+        if (!this.dirty)
+            return;
+        this.repaint(this.dirtyRegion.x, this.dirtyRegion.y, this.dirtyRegion.width, this.dirtyRegion.height);
+        this.dirty = false;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        var clip = g.getClipBounds();
+        g.setColor(BACKGROUND_COLOR);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (this.maze == null)
+            return;
+
+        // Only the tiles intersecting the clip are drawn, which keeps the frame time independent of the maze size
+        if (this.zoomLevel < 0) {
+            this.buildBlockLevels();
+            this.updateBlockLabels();
+        }
+        int tileCells = this.tileCells();
+        int tileRows = (this.maze.length + tileCells - 1) / tileCells;
+        int tileCols = (this.maze[0].length + tileCells - 1) / tileCells;
+        int firstTileRow = Math.max(0, Math.floorDiv(clip.y - this.offsetY, TILE_PIXELS));
+        int lastTileRow = Math.min(tileRows - 1, Math.floorDiv(clip.y + clip.height - this.offsetY, TILE_PIXELS));
+        int firstTileCol = Math.max(0, Math.floorDiv(clip.x - this.offsetX, TILE_PIXELS));
+        int lastTileCol = Math.min(tileCols - 1, Math.floorDiv(clip.x + clip.width - this.offsetX, TILE_PIXELS));
+
+        for (int tileRow = firstTileRow; tileRow <= lastTileRow; tileRow++)
+            for (int tileCol = firstTileCol; tileCol <= lastTileCol; tileCol++)
+                g.drawImage(this.getTile(tileRow, tileCol),
+                        this.offsetX + tileCol * TILE_PIXELS, this.offsetY + tileRow * TILE_PIXELS, null);
+    }
+
+    /**
+     * Get a rendered tile from the cache, rendering it if it is missing.
+     *
+     * Time complexity: O(1) when cached, O(TILE_PIXELS^2) otherwise, zoomed in or out
+     */
+    private BufferedImage getTile(int tileRow, int tileCol) {
+        long key = tileKey(tileRow, tileCol);
+        var tile = this.tileCache.get(key);
+        if (tile == null) {
+            tile = this.renderTile(tileRow, tileCol);
+            this.tileCache.put(key, tile);
+        }
+        return tile;
+    }
+
+    private BufferedImage renderTile(int tileRow, int tileCol) {
+        var tile = new BufferedImage(TILE_PIXELS, TILE_PIXELS, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, BACKGROUND_COLOR.getRGB());
+
+        if (this.zoomLevel < 0) { // A pixel per block of cells
+            int level = -this.zoomLevel;
+            int blockRows = blockCount(this.maze.length, level);
+            int blockCols = blockCount(this.maze[0].length, level);
+            int firstRow = tileRow * TILE_PIXELS;
+            int firstCol = tileCol * TILE_PIXELS;
+            int lastRow = Math.min(blockRows, firstRow + TILE_PIXELS);
+            int lastCol = Math.min(blockCols, firstCol + TILE_PIXELS);
+            for (int row = firstRow; row < lastRow; row++)
+                for (int col = firstCol; col < lastCol; col++)
+                    pixels[(row - firstRow) * TILE_PIXELS + col - firstCol] =
+                            PALETTE[this.blockCode(level, row, col, blockCols)];
+            return tile;
+        }
+
+        int tileCells = this.tileCells();
+        int firstRow = tileRow * tileCells;
+        int firstCol = tileCol * tileCells;
+        int lastRow = Math.min(this.maze.length, firstRow + tileCells);
+        int lastCol = Math.min(this.maze[0].length, firstCol + tileCells);
+        for (int row = firstRow; row < lastRow; row++)
+            for (int col = firstCol; col < lastCol; col++)
+                this.fillCell(tile, row, col);
+
+        return tile;
+    }
+
+    /**
+     * @return The state of the cell as shown, UNREACHABLE for an open cell outside the reachable region
+     */
+    private byte displayCode(int row, int col) {
+        var state = this.getCell(row, col);
+        if (state == Cell.TRAVERSABLE && this.reachableLabel != ComponentLabels.NO_COMPONENT
+                && this.components.getLabel(row, col) != this.reachableLabel)
+            return UNREACHABLE;
+        return (byte) state.ordinal();
+    }
+
+    /**
+     * Draw a cell into the tile it belongs to. Zoomed out, the pixel of the block of the cell is drawn instead.
+     */
+    private void fillCell(BufferedImage tile, int row, int col) {
+        int[] pixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+        if (this.zoomLevel < 0) {
+            int level = -this.zoomLevel;
+            int blockRow = row >> level;
+            int blockCol = col >> level;
+            int code = this.blockCode(level, blockRow, blockCol, blockCount(this.maze[0].length, level));
+            pixels[blockRow % TILE_PIXELS * TILE_PIXELS + blockCol % TILE_PIXELS] = PALETTE[code];
+            return;
+        }
+        int tileCells = this.tileCells();
+        int cellSize = 1 << this.zoomLevel;
+        int x = col % tileCells * cellSize;
+        int y = row % tileCells * cellSize;
+        int color = PALETTE[this.displayCode(row, col)];
+        for (int py = y; py < y + cellSize; py++)
+            Arrays.fill(pixels, py * TILE_PIXELS + x, py * TILE_PIXELS + x + cellSize, color);
+    }
+
+    private int tileCells() {
+        return this.zoomLevel >= 0 ? TILE_PIXELS >> this.zoomLevel : TILE_PIXELS << -this.zoomLevel;
+    }
+
+    /**
+     * @return Pixels taken by a number of cells at a zoom level
+     */
+    private static long scale(int cells, int zoomLevel) {
+        return zoomLevel >= 0 ? (long) cells << zoomLevel : blockCount(cells, -zoomLevel);
+    }
+
+    /**
+     * @return Number of blocks of 2^level cells along a side of a number of cells
+     */
+    private static int blockCount(int cells, int level) {
+        return ((cells - 1) >> level) + 1;
+    }
+
+    /**
+     * Build the levels of blocks from the displayed cells, unless they are built. They are kept up to date by
+     * updateBlocks from then on.
+     *
+     * Time complexity: O(nm) once per maze
+     * Where n is the height of the maze and m is the width of the maze.
+     */
+    private void buildBlockLevels() {
+        if (this.blockLevels != null)
+            return;
+        int rows = this.maze.length;
+        int cols = this.maze[0].length;
+        this.blockLevels = new byte[-MIN_ZOOM_LEVEL + 1][];
+        for (int level = 1; level < this.blockLevels.length; level++)
+            this.blockLevels[level] = new byte[blockCount(rows, level) * blockCount(cols, level)];
+
+        var firstLevel = this.blockLevels[1];
+        Arrays.fill(firstLevel, (byte) Cell.WALL.ordinal()); // The least prominent code
+        int firstLevelCols = blockCount(cols, 1);
+        for (int row = 0; row < rows; row++) { // O(nm)
+            for (int col = 0; col < cols; col++) {
+                int block = (row >> 1) * firstLevelCols + (col >> 1);
+                firstLevel[block] = moreProminent(firstLevel[block], (byte) this.getCell(row, col).ordinal());
+            }
+        }
+        for (int level = 2; level < this.blockLevels.length; level++) // O(nm / 4) for all levels together
+            for (int row = 0; row < blockCount(rows, level); row++)
+                for (int col = 0; col < blockCount(cols, level); col++)
+                    this.blockLevels[level][row * blockCount(cols, level) + col] = this.combineBlock(level, row, col);
+    }
+
+    /**
+     * Bring the labels of the blocks up to date with the connected regions. After a single update of the regions
+     * only the blocks of the relabelled cells change, new regions are built again.
+     *
+     * Time complexity: O(r log(max(n, m))) where r is the number of relabelled cells, O(nm) for new regions
+     */
+    private void updateBlockLabels() {
+        if (this.components == null)
+            return;
+        if (this.blockLabels != null && this.blockLabelsOf == this.components) {
+            int updates = this.components.getUpdateCount();
+            if (updates == this.blockLabelsUpdate)
+                return;
+            if (updates == this.blockLabelsUpdate + 1) {
+                int cols = this.maze[0].length;
+                for (int i = 0; i < this.components.getRelabelledCount(); i++) {
+                    int cell = this.components.getRelabelled(i);
+                    this.updateBlockLabels(cell / cols, cell % cols);
+                }
+                this.blockLabelsUpdate = updates;
+                return;
+            }
+        }
+
+        int rows = this.maze.length;
+        int cols = this.maze[0].length;
+        this.blockLabels = new int[-MIN_ZOOM_LEVEL + 1][];
+        for (int level = 1; level < this.blockLabels.length; level++) {
+            this.blockLabels[level] = new int[blockCount(rows, level) * blockCount(cols, level)];
+            for (int row = 0; row < blockCount(rows, level); row++) // O(nm) for all levels together
+                for (int col = 0; col < blockCount(cols, level); col++)
+                    this.blockLabels[level][row * blockCount(cols, level) + col] = this.combineLabels(level, row, col);
+        }
+        this.blockLabelsOf = this.components;
+        this.blockLabelsUpdate = this.components.getUpdateCount();
+    }
+
+    /**
+     * Update the labels of the blocks containing a cell after its label changed, up to the first block that is
+     * unchanged.
+     *
+     * Time complexity: O(log(max(n, m)))
+     */
+    private void updateBlockLabels(int row, int col) {
+        for (int level = 1; level < this.blockLabels.length; level++) {
+            int blockRow = row >> level;
+            int blockCol = col >> level;
+            int index = blockRow * blockCount(this.maze[0].length, level) + blockCol;
+            int label = this.combineLabels(level, blockRow, blockCol);
+            if (this.blockLabels[level][index] == label)
+                return;
+            this.blockLabels[level][index] = label;
+        }
+    }
+
+    /**
+     * @return The label of the four blocks of the level below that make up a block, MIXED_LABELS if they differ
+     */
+    private int combineLabels(int level, int blockRow, int blockCol) {
+        int rows = blockCount(this.maze.length, level - 1);
+        int cols = blockCount(this.maze[0].length, level - 1);
+        int combined = ComponentLabels.NO_COMPONENT;
+        for (int row = 2 * blockRow; row < Math.min(rows, 2 * blockRow + 2); row++) {
+            for (int col = 2 * blockCol; col < Math.min(cols, 2 * blockCol + 2); col++) {
+                int label = level == 1 ? this.components.getLabel(row, col)
+                        : this.blockLabels[level - 1][row * cols + col];
+                if (label == ComponentLabels.NO_COMPONENT || label == combined)
+                    continue;
+                if (combined != ComponentLabels.NO_COMPONENT || label == MIXED_LABELS)
+                    return MIXED_LABELS;
+                combined = label;
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * @return The display code of a block, UNREACHABLE for open blocks without a cell of the reachable region
+     */
+    private byte blockCode(int level, int blockRow, int blockCol, int blockCols) {
+        byte code = this.blockLevels[level][blockRow * blockCols + blockCol];
+        if (code != Cell.TRAVERSABLE.ordinal() || this.reachableLabel == ComponentLabels.NO_COMPONENT)
+            return code;
+        this.updateBlockLabels(); // The regions may have changed since the last paint
+        if (!this.hasLabel(level, blockRow, blockCol, this.reachableLabel))
+            return UNREACHABLE;
+        return code;
+    }
+
+    /**
+     * Check if a block has a cell with a label, looking into the blocks below only where the regions are mixed.
+     *
+     * Time complexity: O(1) for a block of a single region, up to O(4^level) at the borders of the regions
+     */
+    private boolean hasLabel(int level, int blockRow, int blockCol, int label) {
+        if (level == 0)
+            return this.components.getLabel(blockRow, blockCol) == label;
+        int blockLabel = this.blockLabels[level][blockRow * blockCount(this.maze[0].length, level) + blockCol];
+        if (blockLabel != MIXED_LABELS)
+            return blockLabel == label;
+        int rows = blockCount(this.maze.length, level - 1);
+        int cols = blockCount(this.maze[0].length, level - 1);
+        for (int row = 2 * blockRow; row < Math.min(rows, 2 * blockRow + 2); row++)
+            for (int col = 2 * blockCol; col < Math.min(cols, 2 * blockCol + 2); col++)
+                if (this.hasLabel(level - 1, row, col, label))
+                    return true;
+        return false;
+    }
+
+    /**
+     * Update the blocks containing a cell after its displayed state changed, up to the first block that is unchanged.
+     *
+     * Time complexity: O(log(max(n, m)))
+     */
+    private void updateBlocks(int row, int col) {
+        if (this.blockLevels == null)
+            return;
+        for (int level = 1; level < this.blockLevels.length; level++) {
+            int blockRow = row >> level;
+            int blockCol = col >> level;
+            int index = blockRow * blockCount(this.maze[0].length, level) + blockCol;
+            byte code = this.combineBlock(level, blockRow, blockCol);
+            if (this.blockLevels[level][index] == code)
+                return;
+            this.blockLevels[level][index] = code;
+        }
+    }
+
+    /**
+     * @return The most prominent code of the four blocks of the level below that make up a block
+     */
+    private byte combineBlock(int level, int blockRow, int blockCol) {
+        int rows = blockCount(this.maze.length, level - 1);
+        int cols = blockCount(this.maze[0].length, level - 1);
+        byte code = (byte) Cell.WALL.ordinal();
+        for (int row = 2 * blockRow; row < Math.min(rows, 2 * blockRow + 2); row++)
+            for (int col = 2 * blockCol; col < Math.min(cols, 2 * blockCol + 2); col++)
+                code = moreProminent(code, level == 1 ? (byte) this.getCell(row, col).ordinal()
+                        : this.blockLevels[level - 1][row * cols + col]);
+        return code;
+    }
+
+    private static byte moreProminent(byte code, byte other) {
+        return PROMINENCE[other] > PROMINENCE[code] ? other : code;
+    }
+
+    private static long tileKey(int tileRow, int tileCol) {
+        return ((long) tileRow << 32) | (tileCol & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Translate a point in the component to the cell under it.
+     *
+     * @return The coordinate of the cell, or null if the point is outside the maze
+     */
+    private Coordinate cellAt(Point point) {
+        if (this.maze == null)
+            return null;
+        long row = this.zoomLevel >= 0 ? Math.floorDiv(point.y - this.offsetY, 1 << this.zoomLevel)
+                : (long) (point.y - this.offsetY) << -this.zoomLevel;
+        long col = this.zoomLevel >= 0 ? Math.floorDiv(point.x - this.offsetX, 1 << this.zoomLevel)
+                : (long) (point.x - this.offsetX) << -this.zoomLevel;
+        if (row < 0 || row >= this.maze.length || col < 0 || col >= this.maze[0].length)
+            return null;
+        return new Coordinate((int) row, (int) col);
+    }
+
+    /**
+     * Zoom in or out by one level, keeping the cell under the given point in place.
+     */
+    private void zoom(Point anchor, int levels) {
+        int newZoomLevel = Math.max(MIN_ZOOM_LEVEL, Math.min(MAX_ZOOM_LEVEL, this.zoomLevel + levels));
+        if (newZoomLevel == this.zoomLevel)
+            return;
+
+        int shift = newZoomLevel - this.zoomLevel;
+        long anchorX = anchor.x - this.offsetX;
+        long anchorY = anchor.y - this.offsetY;
+        this.offsetX = (int) (anchor.x - (shift > 0 ? anchorX << shift : anchorX >> -shift));
+        this.offsetY = (int) (anchor.y - (shift > 0 ? anchorY << shift : anchorY >> -shift));
+        this.zoomLevel = newZoomLevel;
+
+        this.tileCache.clear(); // Tiles are rendered for a single zoom level
+        this.repaint();
+    }
+
+    private void initMouseListeners() {
+        var mouseAdapter = new MouseAdapter() {
+            private Point pressedAt;
+            private Point lastDragAt;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                this.pressedAt = e.getPoint();
+                this.lastDragAt = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                offsetX += e.getX() - this.lastDragAt.x;
+                offsetY += e.getY() - this.lastDragAt.y;
+                this.lastDragAt = e.getPoint();
+                repaint();
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                // Only treat the release as a click if the mouse was not dragged to pan the maze
+                if (this.pressedAt == null || this.pressedAt.distance(e.getPoint()) > CLICK_TOLERANCE)
+                    return;
+                var location = cellAt(e.getPoint());
+                if (location != null && cellClickListener != null)
+                    cellClickListener.accept(location);
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(e.getPoint(), -e.getWheelRotation());
+            }
+        };
+
+        this.addMouseListener(mouseAdapter);
+        this.addMouseMotionListener(mouseAdapter);
+        this.addMouseWheelListener(mouseAdapter);
+    }
+
+    private static int[] createPalette() {
+        var palette = new int[STATES.length + 1];
+        for (Cell cell : STATES)
+            palette[cell.ordinal()] = translateStateToColor(cell).getRGB();
+        palette[UNREACHABLE] = UNREACHABLE_COLOR.getRGB();
+        return palette;
+    }
+
+    private static int[] createProminence() {
+        var prominence = new int[STATES.length + 1];
+        Cell[] order = {Cell.WALL, Cell.TRAVERSABLE, Cell.DEAD_END, Cell.VISITED, Cell.PATH, Cell.START, Cell.FINISH};
+        for (int rank = 0; rank < order.length; rank++)
+            prominence[order[rank].ordinal()] = 2 * rank;
+        prominence[UNREACHABLE] = prominence[Cell.TRAVERSABLE.ordinal()] - 1; // Reachable cells show over it
+        return prominence;
+    }
+
+    private static Color translateStateToColor(Cell cell) {
+        return switch (cell) {
+            case TRAVERSABLE -> Color.WHITE;
+            case WALL -> Color.BLACK;
+            case DEAD_END -> Color.RED;
+            case VISITED -> Color.BLUE;
+            case PATH -> Color.GREEN;
+            case START -> Color.ORANGE;
+            case FINISH -> Color.CYAN;
+        };
+    }
+}
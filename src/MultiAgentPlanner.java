@@ -0,0 +1,394 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Plans paths for many agents in the same maze that never collide, with cooperative A*.
+ * The agents are planned one at a time in order of priority. Every agent searches in space and time, where waiting
+ * in place is also a move, around the cells and timesteps reserved by the agents planned before it, and then
+ * reserves its own path. An agent stays at its goal once it arrives, so no later agent may pass through it from then.
+ * Agents in different connected regions of the maze can never meet, so every region is planned in parallel with its
+ * own reservation table.
+ * The agents that aren't planned yet wait at their starts, no agent planned before them may pass through or stop on
+ * those cells at any timestep. An agent whose goal is the start of an agent planned after it therefore fails, and an
+ * agent that fails leaves its start free to the agents planned after it.
+ * Like every prioritized planner, an agent can fail to find a path that avoids the agents planned before it.
+ */
+public class MultiAgentPlanner {
+
+    private static final int WAIT_SLACK = 64; // Timesteps an agent may spend waiting on top of twice its distance
+    private static final int STATES_PER_TIMESTEP = 32; // States an agent may search per timestep of its horizon
+    private static final int NEVER = Integer.MAX_VALUE;
+    private static final int CACHED_GOALS = 16; // Distances to goals a region keeps, each takes 4 bytes per cell
+    private static final int[][] MOVES = {{0, 0}, {-1, 0}, {1, 0}, {0, -1}, {0, 1}}; // Wait, up, down, left, right
+
+    private final Cell[][] maze;
+    private final ComponentLabels components;
+    private final BitboardFloodFill bitboard;
+    private final int rows;
+    private final int cols;
+
+    /**
+     * @param id    Identifies the agent in the reservations, unique among the planned agents
+     * @param start Where the agent is at timestep 0
+     * @param goal  Where the agent stays once it arrives
+     */
+    public record Agent(int id, Coordinate start, Coordinate goal) {}
+
+    /**
+     * @param agent The agent
+     * @param steps Where the agent is at every timestep, the step number is the timestep, empty if no path was found
+     */
+    public record Route(Agent agent, List<MazeTraversalStep> steps) {
+
+        public boolean isFound() {
+            return !this.steps.isEmpty();
+        }
+
+        /**
+         * @return The timestep the agent arrives at its goal, -1 if no path was found
+         */
+        public int arrival() {
+            return this.steps.size() - 1;
+        }
+    }
+
+    /**
+     * @param routes       The routes of the agents, in the order of the agents
+     * @param failed       Number of agents without a path
+     * @param makespan     Timestep the last agent arrives at its goal
+     * @param reservations Number of reserved cells and timesteps
+     */
+    public record Plan(List<Route> routes, int failed, int makespan, long reservations) {}
+
+    /**
+     * Where the agents of a region are. The regions that are planned in parallel share the arrays per cell, every
+     * region has its own reservation table sized for the routes of its agents.
+     */
+    private static class Reservations {
+
+        private final ReservationTable table;
+        private final AtomicIntegerArray parkedFrom; // Timestep an agent arrives at the cell and stays, or NEVER
+        private final AtomicIntegerArray lastReserved; // Latest reserved timestep of the cell, or -1
+        private final AtomicIntegerArray waiting; // Agent that waits at its start to be planned, or NONE
+
+        private Reservations(ReservationTable table, AtomicIntegerArray parkedFrom, AtomicIntegerArray lastReserved,
+                             AtomicIntegerArray waiting) {
+            this.table = table;
+            this.parkedFrom = parkedFrom;
+            this.lastReserved = lastReserved;
+            this.waiting = waiting;
+        }
+
+        /**
+         * @return Reservations of the cells of the maze, without a reservation table of a region
+         */
+        static Reservations forCells(int cells) {
+            var reservations = new Reservations(new ReservationTable(0), new AtomicIntegerArray(cells),
+                    new AtomicIntegerArray(cells), new AtomicIntegerArray(cells));
+            for (int cell = 0; cell < cells; cell++) {
+                reservations.parkedFrom.set(cell, NEVER);
+                reservations.lastReserved.set(cell, -1);
+                reservations.waiting.set(cell, ReservationTable.NONE);
+            }
+            return reservations;
+        }
+
+        /**
+         * @return Reservations of a region, sharing the arrays per cell
+         */
+        Reservations forRegion(long maxReservations) {
+            return new Reservations(new ReservationTable(maxReservations), this.parkedFrom, this.lastReserved,
+                    this.waiting);
+        }
+
+        /**
+         * @return true if the cell is free for the agent at the timestep
+         */
+        boolean isFree(int cell, int time, int agent) {
+            int reserved = this.table.getAgent(cell, time);
+            int waiting = this.waiting.get(cell);
+            return (reserved == ReservationTable.NONE || reserved == agent) && time < this.parkedFrom.get(cell)
+                    && (waiting == ReservationTable.NONE || waiting == agent);
+        }
+
+        /**
+         * @return true if the cell is reserved for the agent, false if it was reserved for another agent
+         */
+        boolean reserve(int cell, int time, int agent) {
+            if (!this.table.reserve(cell, time, agent))
+                return false;
+            this.lastReserved.accumulateAndGet(cell, time, Math::max);
+            return true;
+        }
+    }
+
+    /**
+     * The states an agent has searched, an open-addressed hash set of long keys with linear probing so the states
+     * aren't boxed. It doubles when it is half full.
+     */
+    private static class StateSet {
+
+        private static final long EMPTY = -1; // Keys are never negative
+
+        private long[] keys = empty(16);
+        private int size;
+
+        /**
+         * Time complexity: O(1) amortized
+         *
+         * @return true if the key wasn't in the set
+         */
+        boolean add(long key) {
+            if (2 * (this.size + 1) > this.keys.length)
+                this.grow();
+            int mask = this.keys.length - 1;
+            for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+                if (this.keys[slot] == EMPTY) {
+                    this.keys[slot] = key;
+                    this.size++;
+                    return true;
+                }
+                if (this.keys[slot] == key)
+                    return false;
+            }
+        }
+
+        private void grow() {
+            var old = this.keys;
+            this.keys = empty(old.length * 2);
+            this.size = 0;
+            for (long key : old)
+                if (key != EMPTY)
+                    this.add(key);
+        }
+
+        private static long[] empty(int capacity) {
+            var keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        private static int slot(long key, int mask) {
+            key ^= key >>> 33; // Finalizer of MurmurHash3, like ReservationTable
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key & mask;
+        }
+    }
+
+    /**
+     * @param maze       The maze the agents move in
+     * @param components The connected regions of the maze
+     * @param bitboard   Computes the distances to the goals, used as the heuristic
+     */
+    public MultiAgentPlanner(Cell[][] maze, ComponentLabels components, BitboardFloodFill bitboard) {
+        this.maze = maze;
+        this.components = components;
+        this.bitboard = bitboard;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+    }
+
+    /**
+     * Plan the routes of the agents.
+     *
+     * Time complexity: O(a (nm + T log T)) divided over the regions of the maze
+     * Where a is the number of agents, n is the height and m is the width of the maze, and T is the number of cells
+     * and timesteps an agent searches. The distances to a goal are computed once per region while the region has at
+     * most CACHED_GOALS goals, and at most twice per agent otherwise.
+     *
+     * @param agents  The agents in order of priority, the first is planned first
+     * @param control Cancellation and budget of the planning, the agents that aren't planned when it stops fail
+     * @return The routes of the agents
+     */
+    public Plan plan(List<Agent> agents, SearchControl control) {
+        var groups = new LinkedHashMap<Integer, List<Integer>>(); // Region label to the positions of its agents
+        for (int i = 0; i < agents.size(); i++) {
+            var agent = agents.get(i);
+            int label = this.components.getLabel(agent.start());
+            if (label == ComponentLabels.NO_COMPONENT || label != this.components.getLabel(agent.goal()))
+                continue; // Can't reach its goal at all
+            groups.computeIfAbsent(label, k -> new ArrayList<>()).add(i);
+        }
+
+        var cells = Reservations.forCells(this.rows * this.cols);
+        var routes = new Route[agents.size()];
+        var controls = new ConcurrentHashMap<Integer, SearchControl>();
+        groups.entrySet().parallelStream().forEach(group -> {
+            var groupControl = control.createChild();
+            controls.put(group.getKey(), groupControl);
+            this.planRegion(agents, group.getValue(), cells, routes, groupControl);
+        });
+        controls.values().forEach(control::adopt);
+
+        int failed = 0;
+        int makespan = 0;
+        long reserved = 0;
+        for (int i = 0; i < routes.length; i++) {
+            if (routes[i] == null)
+                routes[i] = new Route(agents.get(i), List.of());
+            if (!routes[i].isFound())
+                failed++;
+            makespan = Math.max(makespan, routes[i].arrival());
+            reserved += routes[i].steps().size();
+        }
+        return new Plan(List.of(routes), failed, makespan, reserved);
+    }
+
+    /**
+     * Plan the agents of one region in order of priority.
+     *
+     * @param members The positions of the agents of the region, in order of priority
+     */
+    private void planRegion(List<Agent> agents, List<Integer> members, Reservations cells, Route[] routes,
+                            SearchControl control) {
+        // The distances to the goals that were used last, the least recently used is dropped
+        var distances = new LinkedHashMap<Coordinate, int[]>(CACHED_GOALS, 0.75f, true);
+        // The agents wait at their starts until they are planned, an agent can't start where another one does
+        var blocked = new HashSet<Integer>();
+        for (int i : members) {
+            var agent = agents.get(i);
+            if (!cells.waiting.compareAndSet(this.index(agent.start()), ReservationTable.NONE, agent.id()))
+                blocked.add(i);
+        }
+        // In reverse, so the cache is left with the goals of the agents that are planned first
+        long maxReservations = 0;
+        for (int position = members.size() - 1; position >= 0 && !control.isStopped(); position--) {
+            int i = members.get(position);
+            if (!blocked.contains(i))
+                maxReservations += this.horizon(this.distancesTo(agents.get(i).goal(), distances), agents.get(i)) + 1;
+        }
+
+        var reservations = cells.forRegion(maxReservations);
+        for (int i : members) {
+            var agent = agents.get(i);
+            if (blocked.contains(i) || control.isStopped()) {
+                routes[i] = new Route(agent, List.of());
+                continue;
+            }
+            routes[i] = new Route(agent,
+                    this.planAgent(agent, this.distancesTo(agent.goal(), distances), reservations, control));
+            reservations.waiting.set(this.index(agent.start()), ReservationTable.NONE); // Reserved by its route
+        }
+    }
+
+    /**
+     * The distances to a goal, computed again if the goal was dropped from the cache.
+     *
+     * Time complexity: O(1) if cached, otherwise O(nm)
+     */
+    private int[] distancesTo(Coordinate goal, LinkedHashMap<Coordinate, int[]> cache) {
+        int[] distance = cache.get(goal);
+        if (distance == null) {
+            distance = this.bitboard.distancesFrom(goal);
+            cache.put(goal, distance);
+            if (cache.size() > CACHED_GOALS)
+                cache.remove(cache.keySet().iterator().next()); // Least recently used
+        }
+        return distance;
+    }
+
+    /**
+     * Search in space and time for a route of the agent that avoids the reservations, and reserve it.
+     *
+     * @return The steps of the route, or an empty list if there is none within the horizon and the state limit
+     */
+    private List<MazeTraversalStep> planAgent(Agent agent, int[] distance, Reservations reservations,
+                                              SearchControl control) {
+        int start = this.index(agent.start());
+        int goal = this.index(agent.goal());
+        int horizon = this.horizon(distance, agent);
+        // Without a limit an agent that is walled in by parked agents would search every cell at every timestep
+        int maxStates = STATES_PER_TIMESTEP * (horizon + 1);
+        // A state is a cell at a timestep, its cost is the timestep and it is queued by timestep plus distance. The
+        // distance never overestimates and changes by at most 1 per move, so the keys never decrease
+        var stateCells = new int[64];
+        var stateParents = new int[64];
+        var stateTimes = new int[64];
+        int stateCount = 0;
+        var seen = new StateSet();
+        var open = new RadixHeap();
+        stateCells[0] = start;
+        stateParents[0] = -1;
+        stateCount++;
+        seen.add((long) start);
+        open.add(distance[start], 0);
+
+        while (!open.isEmpty()) {
+            int state = open.poll();
+            if (control.checkpoint())
+                return List.of();
+            int cell = stateCells[state];
+            int time = stateTimes[state];
+            if (cell == goal && time > reservations.lastReserved.get(goal))
+                return this.reserveRoute(agent, state, stateCells, stateParents, stateTimes, reservations);
+            if (time >= horizon)
+                continue;
+
+            int row = cell / this.cols;
+            int col = cell % this.cols;
+            for (int[] move : MOVES) { // O(5)
+                int nextRow = row + move[0];
+                int nextCol = col + move[1];
+                if (nextRow < 0 || nextRow >= this.rows || nextCol < 0 || nextCol >= this.cols
+                        || this.maze[nextRow][nextCol] == Cell.WALL)
+                    continue;
+                int next = nextRow * this.cols + nextCol;
+                if (!reservations.isFree(next, time + 1, agent.id()))
+                    continue;
+                // Two agents can't swap cells, they would pass through each other
+                int oncoming = reservations.table.getAgent(next, time);
+                if (next != cell && oncoming != ReservationTable.NONE && oncoming != agent.id()
+                        && oncoming == reservations.table.getAgent(cell, time + 1))
+                    continue;
+                // Only marked once queued, a state refused for the swap from this cell can be reached from another
+                if (!seen.add((long) (time + 1) << 32 | next))
+                    continue;
+
+                if (stateCount == maxStates)
+                    return List.of();
+                if (stateCount == stateCells.length) {
+                    stateCells = Arrays.copyOf(stateCells, stateCount * 2);
+                    stateParents = Arrays.copyOf(stateParents, stateCount * 2);
+                    stateTimes = Arrays.copyOf(stateTimes, stateCount * 2);
+                }
+                stateCells[stateCount] = next;
+                stateParents[stateCount] = state;
+                stateTimes[stateCount] = time + 1;
+                open.add(time + 1 + distance[next], stateCount++);
+            }
+        }
+        return List.of();
+    }
+
+    private List<MazeTraversalStep> reserveRoute(Agent agent, int goalState, int[] stateCells, int[] stateParents,
+                                                 int[] stateTimes, Reservations reservations) {
+        var steps = new MazeTraversalStep[stateTimes[goalState] + 1];
+        for (int state = goalState; state >= 0; state = stateParents[state]) { // O(p)
+            int time = stateTimes[state];
+            int parent = stateParents[state];
+            reservations.reserve(stateCells[state], time, agent.id());
+            steps[time] = new MazeTraversalStep(time, this.coordinate(stateCells[state]),
+                    parent < 0 ? null : this.coordinate(stateCells[parent]), time, 0,
+                    parent < 0 ? Cell.START : state == goalState ? Cell.FINISH : Cell.PATH);
+        }
+        reservations.parkedFrom.set(stateCells[goalState], stateTimes[goalState]);
+        return List.of(steps);
+    }
+
+    /**
+     * @return The last timestep the agent may arrive at its goal
+     */
+    private int horizon(int[] distance, Agent agent) {
+        return 2 * distance[this.index(agent.start())] + WAIT_SLACK;
+    }
+
+    private int index(Coordinate coordinate) {
+        return coordinate.row() * this.cols + coordinate.col();
+    }
+
+    private Coordinate coordinate(int index) {
+        return new Coordinate(index / this.cols, index % this.cols);
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Level synchronous breadth first search. Every move costs 1, so the level a cell is reached at is its distance from
+ * the start and the first path found to the goal is a shortest path, no priority queue is needed.
+ * The frontier of a level is split into chunks that are expanded in parallel on the common ForkJoinPool. A neighbour
+ * is claimed by setting its bit in a shared visited bitset with compare-and-set, so exactly one thread records its
+ * parent and adds it to the next frontier.
+ */
+public class ParallelBreadthFirstSearch {
+
+    private static final int CHUNK_SIZE = 2048; // Frontier cells per parallel task, smaller frontiers run sequentially
+
+    private final Cell[][] maze;
+    private final int rows;
+    private final int cols;
+    private final AtomicLongArray visited;
+    private final int[] parent;
+
+    private ParallelBreadthFirstSearch(Cell[][] maze) {
+        this.maze = maze;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        this.visited = new AtomicLongArray((this.rows * this.cols + 63) / 64);
+        this.parent = new int[this.rows * this.cols];
+    }
+
+    /**
+     * Find a shortest path between two cells. The cells of every level are added to the trace as visited before the
+     * next level is expanded, followed by the path.
+     *
+     * Time complexity: O(nm / p + d)
+     * Where n is the height of the maze, m is the width of the maze, p is the number of cores and d is the number of
+     * levels.
+     *
+     * @param maze    The maze to search
+     * @param start   Where to start in the maze
+     * @param goal    Where the goal is in the maze
+     * @param control Cancellation and budget of the search, checked between the cells of a level
+     * @return The steps of the search, partial if the search was stopped by the control
+     */
+    public static TraceBuffer findPath(Cell[][] maze, Coordinate start, Coordinate goal, SearchControl control) {
+        var search = new ParallelBreadthFirstSearch(maze);
+        var trace = new TraceBuffer(search.rows, search.cols, false);
+        int startIndex = start.row() * search.cols + start.col();
+        int goalIndex = goal.row() * search.cols + goal.col();
+        if (maze[start.row()][start.col()] == Cell.WALL)
+            return trace;
+
+        search.claim(startIndex, startIndex);
+        int[] frontier = {startIndex};
+        while (frontier.length > 0) { // O(d)
+            for (int cell : frontier) {
+                if (control.checkpoint())
+                    return trace;
+                trace.add(cell / search.cols, cell % search.cols, Cell.VISITED);
+            }
+            if (search.isVisited(goalIndex)) { // The goal was claimed while expanding the previous level
+                search.addPath(trace, startIndex, goalIndex);
+                break;
+            }
+            frontier = search.expand(frontier);
+        }
+        return trace;
+    }
+
+    /**
+     * Expand a level, claiming the unvisited neighbours of the frontier.
+     *
+     * @return The next frontier
+     */
+    private int[] expand(int[] frontier) {
+        if (frontier.length <= CHUNK_SIZE)
+            return this.expandChunk(frontier, 0, frontier.length);
+
+        int chunks = (frontier.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[][] parts = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> this.expandChunk(frontier, chunk * CHUNK_SIZE,
+                        Math.min(frontier.length, (chunk + 1) * CHUNK_SIZE)))
+                .toArray(int[][]::new);
+
+        int length = 0;
+        for (int[] part : parts)
+            length += part.length;
+        var next = new int[length];
+        int offset = 0;
+        for (int[] part : parts) { // Concatenated in order, so the trace doesn't depend on the scheduling
+            System.arraycopy(part, 0, next, offset, part.length);
+            offset += part.length;
+        }
+        return next;
+    }
+
+    private int[] expandChunk(int[] frontier, int from, int to) {
+        var next = new int[(to - from) * 4];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            int current = frontier[i];
+            int row = current / this.cols;
+            int col = current % this.cols;
+            if (row > 0 && this.maze[row - 1][col] != Cell.WALL && this.claim(current - this.cols, current))
+                next[size++] = current - this.cols;
+            if (row < this.rows - 1 && this.maze[row + 1][col] != Cell.WALL && this.claim(current + this.cols, current))
+                next[size++] = current + this.cols;
+            if (col > 0 && this.maze[row][col - 1] != Cell.WALL && this.claim(current - 1, current))
+                next[size++] = current - 1;
+            if (col < this.cols - 1 && this.maze[row][col + 1] != Cell.WALL && this.claim(current + 1, current))
+                next[size++] = current + 1;
+        }
+        return Arrays.copyOf(next, size);
+    }
+
+    /**
+     * Mark a cell as visited if no other thread did it first.
+     *
+     * Time complexity: O(1), retried only when another cell of the same word is claimed at the same time
+     *
+     * @return true if the cell was claimed by this call
+     */
+    private boolean claim(int cell, int from) {
+        int word = cell >>> 6;
+        long bit = 1L << (cell & 63);
+        long current;
+        do {
+            current = this.visited.get(word);
+            if ((current & bit) != 0)
+                return false;
+        } while (!this.visited.compareAndSet(word, current, current | bit));
+        this.parent[cell] = from; // Read after the level is joined, which makes the write visible
+        return true;
+    }
+
+    private boolean isVisited(int cell) {
+        return (this.visited.get(cell >>> 6) & (1L << (cell & 63))) != 0;
+    }
+
+    /**
+     * Time complexity: O(p)
+     * Where p is the length of the path.
+     */
+    private void addPath(TraceBuffer trace, int start, int goal) {
+        var path = new int[64];
+        int length = 0;
+        for (int cell = goal; cell != start; cell = this.parent[cell]) {
+            if (length == path.length)
+                path = Arrays.copyOf(path, length * 2);
+            path[length++] = cell;
+        }
+        trace.add(start / this.cols, start % this.cols, Cell.PATH);
+        for (int i = length - 1; i >= 0; i--)
+            trace.add(path[i] / this.cols, path[i] % this.cols, Cell.PATH);
+    }
+}
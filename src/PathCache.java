@@ -0,0 +1,184 @@
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the results of completed searches, so repeated queries aren't searched again. A query from B to
+ * A is answered with the reversed path of a cached query from A to B.
+ *
+ * The cache is a concurrent map without a global lock. Entries are evicted in approximate least recently used order
+ * with the clock algorithm: the keys wait in a queue in the order they were added, and an entry that was used since
+ * it was last at the head of the queue is given a second chance at the tail instead of being evicted.
+ */
+public class PathCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1_024;
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    private static final long ENTRY_OVERHEAD_BYTES = 128; // Key, entry, map node and queue node
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Key> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder reversedHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Queries with the same key have the same result.
+     */
+    private record Key(long mazeHash, Coordinate start, Coordinate goal, Algorithm algorithm, SolveOptions options) {
+
+        Key reversed() {
+            return new Key(this.mazeHash, this.goal, this.start, this.algorithm, this.options);
+        }
+    }
+
+    private static class Entry {
+
+        private final TraceBuffer trace;
+        private final String summary;
+        private final long bytes;
+        private volatile boolean used; // Used since it was last at the head of the clock
+        private volatile int[] path; // Extracted from the trace when the entry is first used in reverse
+
+        Entry(TraceBuffer trace, String summary) {
+            this.trace = trace;
+            this.summary = summary;
+            this.bytes = trace.memoryBytes() + ENTRY_OVERHEAD_BYTES;
+        }
+    }
+
+    /**
+     * @param hits         Queries answered with a cached result of the same query
+     * @param reversedHits Queries answered with a reversed cached result of the opposite query
+     * @param misses       Queries that weren't cached
+     * @param evictions    Entries evicted to stay within the bounds
+     * @param entries      Entries in the cache
+     * @param bytes        Estimated bytes used by the entries
+     */
+    public record Statistics(long hits, long reversedHits, long misses, long evictions, int entries, long bytes) {
+
+        /**
+         * @return Fraction of the queries answered from the cache
+         */
+        public double hitRate() {
+            long queries = this.hits + this.reversedHits + this.misses;
+            return queries == 0 ? 0 : (double) (this.hits + this.reversedHits) / queries;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f%% hit rate (%,d hits, %,d reversed, %,d misses), %,d entries, %,d KB",
+                    this.hitRate() * 100, this.hits, this.reversedHits, this.misses, this.entries, this.bytes >> 10);
+        }
+    }
+
+    public PathCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxEntries Most entries to keep
+     * @param maxBytes   Most bytes of traces to keep
+     */
+    public PathCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Look up the result of a query, or the reversed result of the opposite query. The summary of the cached search
+     * is set on the control.
+     *
+     * Time complexity: O(1) for a cached query, O(p) for a reversed query
+     * Where p is the length of the path.
+     *
+     * @return The trace of the cached search, or only the path for a reversed query, or null if neither is cached
+     */
+    public TraceBuffer get(long mazeHash, Coordinate start, Coordinate goal, Algorithm algorithm, SolveOptions options,
+                           SearchControl control) {
+        var key = new Key(mazeHash, start, goal, algorithm, options);
+        var entry = this.entries.get(key);
+        if (entry != null) {
+            entry.used = true;
+            this.hits.increment();
+            control.setSummary(entry.summary != null ? entry.summary + ", cached" : "cached");
+            return entry.trace;
+        }
+
+        entry = this.entries.get(key.reversed());
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+        entry.used = true;
+        this.reversedHits.increment();
+        control.setSummary("reversed the cached path from the finish");
+
+        int[] path = entry.path;
+        if (path == null)
+            entry.path = path = entry.trace.getPath(goal, start); // The cached query goes from goal to start
+        var trace = new TraceBuffer(entry.trace.getRows(), entry.trace.getCols(), false);
+        for (int i = path.length - 1; i >= 0; i--)
+            trace.add(path[i] / trace.getCols(), path[i] % trace.getCols(), Cell.PATH);
+        return trace;
+    }
+
+    /**
+     * Cache the result of a completed search, and evict entries until the cache is within its bounds.
+     *
+     * Time complexity: O(1) amortized
+     *
+     * @param summary Summary of the search, set on the control of the queries that are answered with the result
+     */
+    public void put(long mazeHash, Coordinate start, Coordinate goal, Algorithm algorithm, SolveOptions options,
+                    TraceBuffer trace, String summary) {
+        var key = new Key(mazeHash, start, goal, algorithm, options);
+        var entry = new Entry(trace, summary);
+        if (entry.bytes > this.maxBytes || this.entries.putIfAbsent(key, entry) != null)
+            return;
+        this.bytes.addAndGet(entry.bytes);
+        this.clock.add(key);
+
+        while (this.entries.size() > this.maxEntries || this.bytes.get() > this.maxBytes) {
+            var candidate = this.clock.poll();
+            if (candidate == null)
+                break; // Another thread is evicting the rest
+            var evicted = this.entries.get(candidate);
+            if (evicted == null)
+                continue; // Removed by clear
+            if (evicted.used) { // Second chance
+                evicted.used = false;
+                this.clock.add(candidate);
+            } else if (this.entries.remove(candidate, evicted)) {
+                this.bytes.addAndGet(-evicted.bytes);
+                this.evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Remove every entry, the statistics are kept.
+     *
+     * Time complexity: O(n) where n is the number of entries
+     */
+    public void clear() {
+        for (var key : this.entries.keySet()) {
+            var removed = this.entries.remove(key);
+            if (removed != null)
+                this.bytes.addAndGet(-removed.bytes);
+        }
+        this.clock.removeIf(key -> !this.entries.containsKey(key)); // Keys added meanwhile stay evictable
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(this.hits.sum(), this.reversedHits.sum(), this.misses.sum(), this.evictions.sum(),
+                this.entries.size(), this.bytes.get());
+    }
+}
@@ -0,0 +1,193 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A path stored as straight runs instead of cells, every run is the cell it starts at, a direction and a length.
+ * The runs are taken from the edges of the corridor graph, so a path takes one long per corridor instead of a step
+ * per cell. The cells are only expanded while the path is iterated.
+ * Every run is packed into one long: bits 0-31 cell index (row * cols + col), bits 32-33 direction, bits 34-63 length.
+ */
+public class PathSegments implements Iterable<Coordinate> {
+
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+    private static final char[] DIRECTION_NAMES = {'U', 'D', 'L', 'R'};
+
+    private final int rows;
+    private final int cols;
+    private final int start; // Cell index of the start, the path is only this cell when there are no runs
+    private long[] runs = new long[16];
+    private int size;
+    private int length;
+
+    /**
+     * @param rows  Number of rows in the maze the path belongs to
+     * @param cols  Number of columns in the maze the path belongs to
+     * @param start Where the path starts
+     */
+    public PathSegments(int rows, int cols, Coordinate start) {
+        this.rows = rows;
+        this.cols = cols;
+        this.start = start.row() * cols + start.col();
+    }
+
+    /**
+     * Continue the path in a straight line to a cell in the same row or column as its end. A run in the same
+     * direction as the last one extends it.
+     *
+     * Time complexity: O(1) amortized
+     *
+     * @param to Where the run ends
+     */
+    public void add(Coordinate to) {
+        int from = this.size == 0 ? this.start : this.getEnd(this.size - 1);
+        int fromRow = from / this.cols;
+        int fromCol = from % this.cols;
+        if (fromRow != to.row() && fromCol != to.col())
+            throw new IllegalArgumentException(to + " is not in line with the end of the path");
+        int direction = to.row() < fromRow ? UP : to.row() > fromRow ? DOWN : to.col() < fromCol ? LEFT : RIGHT;
+        int runLength = Math.abs(to.row() - fromRow) + Math.abs(to.col() - fromCol);
+        if (runLength == 0)
+            return;
+        this.length += runLength;
+        if (this.size > 0 && this.getDirection(this.size - 1) == direction) {
+            int last = this.size - 1;
+            this.runs[last] = pack(this.getCell(last), direction, this.getLength(last) + runLength);
+            return;
+        }
+        if (this.size == this.runs.length)
+            this.runs = Arrays.copyOf(this.runs, this.size * 2);
+        this.runs[this.size++] = pack(from, direction, runLength);
+    }
+
+    /**
+     * @return Number of runs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of moves of the path, one less than the number of cells
+     */
+    public int length() {
+        return length;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRow(int run) {
+        return this.getCell(run) / this.cols;
+    }
+
+    public int getCol(int run) {
+        return this.getCell(run) % this.cols;
+    }
+
+    /**
+     * @return UP, DOWN, LEFT or RIGHT
+     */
+    public int getDirection(int run) {
+        return (int) (this.runs[run] >>> 32) & 0b11;
+    }
+
+    /**
+     * @return Number of moves of the run
+     */
+    public int getLength(int run) {
+        return (int) (this.runs[run] >>> 34);
+    }
+
+    /**
+     * @return U, D, L or R
+     */
+    public static char directionName(int direction) {
+        return DIRECTION_NAMES[direction];
+    }
+
+    /**
+     * Expand the path into the cell index of every cell, from the start to the end.
+     *
+     * Time complexity: O(p)
+     * Where p is the number of cells of the path.
+     *
+     * @return The cells of the path, in the same form as TraceBuffer.getPath
+     */
+    public int[] toCells() {
+        var cells = new int[this.length + 1];
+        int i = 0;
+        cells[i++] = this.start;
+        for (int run = 0; run < this.size; run++) { // O(p)
+            int cell = this.getCell(run);
+            int offset = this.offset(this.getDirection(run));
+            for (int move = 0; move < this.getLength(run); move++)
+                cells[i++] = cell += offset;
+        }
+        return cells;
+    }
+
+    /**
+     * Iterate over every cell of the path from the start to the end, expanding the runs one cell at a time.
+     *
+     * Time complexity: O(1) per cell
+     */
+    @Override
+    public Iterator<Coordinate> iterator() {
+        return new Iterator<>() {
+            private int run;
+            private int move = -1; // Moves taken along the run, -1 before the start is returned
+            private int cell = PathSegments.this.start;
+
+            @Override
+            public boolean hasNext() {
+                return this.move < 0 || this.run < PathSegments.this.size;
+            }
+
+            @Override
+            public Coordinate next() {
+                if (!this.hasNext())
+                    throw new NoSuchElementException();
+                if (this.move < 0) {
+                    this.move = 0;
+                } else {
+                    this.cell += PathSegments.this.offset(PathSegments.this.getDirection(this.run));
+                    if (++this.move == PathSegments.this.getLength(this.run)) {
+                        this.run++;
+                        this.move = 0;
+                    }
+                }
+                return new Coordinate(this.cell / PathSegments.this.cols, this.cell % PathSegments.this.cols);
+            }
+        };
+    }
+
+    private int getCell(int run) {
+        return (int) this.runs[run];
+    }
+
+    private int getEnd(int run) {
+        return this.getCell(run) + this.offset(this.getDirection(run)) * this.getLength(run);
+    }
+
+    private int offset(int direction) {
+        return switch (direction) {
+            case UP -> -this.cols;
+            case DOWN -> this.cols;
+            case LEFT -> -1;
+            default -> 1;
+        };
+    }
+
+    private static long pack(int cell, int direction, int length) {
+        return (long) length << 34 | (long) direction << 32 | cell & 0xFFFFFFFFL;
+    }
+}
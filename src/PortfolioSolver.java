@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Races the algorithms against each other. Which algorithm is fastest depends on the shape of the maze, so all of
+ * them search the same maze at the same time and the first acceptable result is used, the others are cancelled.
+ * The winners are counted per maze, and once an algorithm has won enough races on a maze it runs alone on it.
+ */
+public class PortfolioSolver {
+
+    private static final int TRUSTED_WINS = 3; // Wins after which the winner runs alone on a maze
+    // The incremental session would be replaced by the start of the race
+    private static final Set<Algorithm> NOT_RACING = EnumSet.of(Algorithm.ANYTIME_ASTAR, Algorithm.INCREMENTAL,
+            Algorithm.RACE, Algorithm.AUTO);
+    private static final ExecutorService RACERS = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "race");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<RaceKey, int[]> wins = new ConcurrentHashMap<>();
+
+    /**
+     * The races with the same key are comparable.
+     */
+    private record RaceKey(long mazeHash, boolean requireOptimal, boolean fillDeadEnds) {}
+
+    private record Entry(Algorithm algorithm, SearchControl control, TraceBuffer trace) {}
+
+    /**
+     * Solve with the first algorithm to find a path that meets the optimality requirement of the options, or with
+     * the trusted winner of earlier races on the maze. How the path was found is set as the summary of the control.
+     *
+     * Time complexity: the time of the fastest acceptable algorithm
+     *
+     * @param solver  The solver with the maze to solve
+     * @param start   Where to start in the maze
+     * @param goal    Where the goal is in the maze
+     * @param options Options of the algorithms, and whether only shortest paths are accepted
+     * @param control Cancellation and budget of the race, every algorithm gets the whole budget
+     * @return The steps of the winning search, the first partial result if every search was stopped
+     * @throws IllegalStateException If every search failed, with the failure of the last one as the cause
+     */
+    public TraceBuffer solve(MazeSolver solver, Coordinate start, Coordinate goal, SolveOptions options,
+                             SearchControl control) {
+        var key = new RaceKey(solver.getMazeHash(), options.requireOptimal(), options.fillDeadEnds());
+        int[] mazeWins = this.wins.computeIfAbsent(key, k -> new int[Algorithm.values().length]);
+
+        var trusted = trustedWinner(mazeWins);
+        if (trusted != null) {
+            var trace = solver.solve(trusted, start, goal, options, control);
+            control.setSummary(String.format("%s, the winner of %d races on this maze",
+                    trusted, mazeWins[trusted.ordinal()]));
+            return trace;
+        }
+
+        if (options.fillDeadEnds())
+            solver.fillDeadEnds(start, goal); // Filled once here instead of by every racer
+
+        var contenders = contenders(solver, options);
+        var completion = new ExecutorCompletionService<Entry>(RACERS);
+        var children = new ArrayList<SearchControl>();
+        for (Algorithm algorithm : contenders) {
+            var child = control.createChild();
+            children.add(child);
+            completion.submit(() -> new Entry(algorithm, child, solver.solve(algorithm, start, goal, options, child)));
+        }
+
+        Entry winner = null;
+        Entry fallback = null;
+        ExecutionException failure = null;
+        try {
+            for (int i = 0; i < contenders.size() && winner == null; i++) {
+                try {
+                    var entry = completion.take().get();
+                    if (!entry.control().isStopped())
+                        winner = entry;
+                    else if (fallback == null)
+                        fallback = entry;
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    failure = e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            control.cancel(); // The race was not finished, so its result must not be cached
+        } finally {
+            children.forEach(SearchControl::cancel); // The losers stop at their next checkpoint
+        }
+
+        var result = winner != null ? winner : fallback;
+        if (result == null && failure != null) // Not an empty result, which would be cached as the absence of a path
+            throw new IllegalStateException("Every algorithm of the race failed", failure.getCause());
+        if (result == null)
+            return new TraceBuffer(solver.getMaze().length, solver.getMaze()[0].length, false);
+        control.adopt(result.control());
+        if (winner != null) {
+            synchronized (mazeWins) {
+                mazeWins[winner.algorithm().ordinal()]++;
+            }
+            control.setSummary(String.format("won by %s against %d others", winner.algorithm(),
+                    contenders.size() - 1));
+        }
+        return result.trace();
+    }
+
+    /**
+     * @return The algorithms that can meet the optimality requirement, only the ones that use the costs if the cells
+     * of the maze have costs
+     */
+    private static List<Algorithm> contenders(MazeSolver solver, SolveOptions options) {
+        var contenders = new ArrayList<Algorithm>();
+        for (Algorithm algorithm : Algorithm.values()) {
+            if (NOT_RACING.contains(algorithm) || options.requireOptimal() && !algorithm.isOptimal())
+                continue;
+            if (solver.getCosts() != null && !algorithm.usesCosts())
+                continue; // Would find a short path instead of a cheap one
+            if (algorithm == Algorithm.TREE_PATH && solver.getTreeIndex() == null)
+                continue; // Would run A* again
+            contenders.add(algorithm);
+        }
+        return contenders;
+    }
+
+    /**
+     * @return The algorithm with the most wins if it won at least TRUSTED_WINS races, otherwise null
+     */
+    private static Algorithm trustedWinner(int[] mazeWins) {
+        synchronized (mazeWins) {
+            int best = 0;
+            for (int i = 1; i < mazeWins.length; i++)
+                if (mazeWins[i] > mazeWins[best])
+                    best = i;
+            return mazeWins[best] >= TRUSTED_WINS ? Algorithm.values()[best] : null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+/**
+ * A monotone priority queue of int values with long keys, for searches that never queue a key smaller than the last
+ * polled key, like Dijkstra and A* with a consistent heuristic.
+ * The values are kept in buckets by the highest bit in which their key differs from the last polled key. Polling
+ * empties bucket 0, which holds the keys equal to the last key, and when it is empty the first bucket that isn't is
+ * redistributed into the lower buckets. Every value moves to a lower bucket at most 64 times, so the operations take
+ * O(1) amortized time with small constants, close to the plain queue of a breadth first search.
+ */
+public class RadixHeap {
+
+    private static final int BUCKETS = Long.SIZE + 1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long[][] keys = new long[BUCKETS][INITIAL_CAPACITY];
+    private final int[][] values = new int[BUCKETS][INITIAL_CAPACITY];
+    private final int[] sizes = new int[BUCKETS];
+    private long lastKey;
+    private int size;
+
+    /**
+     * Queue a value.
+     *
+     * Time complexity: O(1) amortized
+     *
+     * @param key   The priority of the value, not smaller than the last polled key
+     * @param value The value
+     */
+    public void add(long key, int value) {
+        if (key < this.lastKey)
+            throw new IllegalArgumentException("Key " + key + " is smaller than the last polled key " + this.lastKey);
+        this.append(this.bucket(key), key, value);
+        this.size++;
+    }
+
+    /**
+     * Remove a value with the smallest key, its key is lastKey afterwards.
+     *
+     * Time complexity: O(1) amortized
+     *
+     * @return The value
+     */
+    public int poll() {
+        if (this.sizes[0] == 0) {
+            int bucket = 1;
+            while (this.sizes[bucket] == 0) // O(64)
+                bucket++;
+            long[] bucketKeys = this.keys[bucket];
+            int[] bucketValues = this.values[bucket];
+            int bucketSize = this.sizes[bucket];
+            long min = bucketKeys[0];
+            for (int i = 1; i < bucketSize; i++)
+                min = Math.min(min, bucketKeys[i]);
+            this.lastKey = min;
+            this.sizes[bucket] = 0;
+            for (int i = 0; i < bucketSize; i++) // Every key now differs from the last key in a lower bit
+                this.append(this.bucket(bucketKeys[i]), bucketKeys[i], bucketValues[i]);
+        }
+        this.size--;
+        return this.values[0][--this.sizes[0]];
+    }
+
+    /**
+     * @return The key of the last polled value
+     */
+    public long lastKey() {
+        return this.lastKey;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private int bucket(long key) {
+        return key == this.lastKey ? 0 : Long.SIZE - Long.numberOfLeadingZeros(key ^ this.lastKey);
+    }
+
+    private void append(int bucket, long key, int value) {
+        int bucketSize = this.sizes[bucket];
+        if (bucketSize == this.keys[bucket].length) {
+            this.keys[bucket] = Arrays.copyOf(this.keys[bucket], bucketSize * 2);
+            this.values[bucket] = Arrays.copyOf(this.values[bucket], bucketSize * 2);
+        }
+        this.keys[bucket][bucketSize] = key;
+        this.values[bucket][bucketSize] = value;
+        this.sizes[bucket] = bucketSize + 1;
+    }
+}
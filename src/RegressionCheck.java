@@ -0,0 +1,219 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Checks the solvers against regressions on the bundled mazes and the generated mazes of Benchmark, and exits with
+ * status 1 if any check fails so it can gate a build.
+ * Every algorithm solves the same seeded queries on every maze. Every path must lead from the start to the goal
+ * through open cells one step at a time. The algorithms that find shortest paths, and the ones that choose an
+ * algorithm under options that require an optimal path, must agree on the length of every path. Weighted and anytime
+ * A* may find paths up to epsilon times as long, the other algorithms up to the maxPathRatio of the budget file.
+ * The median time and memory allocated per query, divided by the open cells of the maze,
+ * must stay within the budgets of every algorithm in the budget file. Per cell budgets hold across maze sizes, so a
+ * search that allocates per step again or grows quadratically exceeds them on the larger mazes.
+ *
+ * Usage: java RegressionCheck [budget file] [maze directory]
+ */
+public class RegressionCheck {
+
+    private static final long SEED = 20240601L;
+    private static final int QUERIES = 10;
+
+    /**
+     * The worst measurement of an algorithm over the mazes, per open cell.
+     */
+    private static class Worst {
+
+        private double bytesPerCell;
+        private double nanosPerCell;
+        private String bytesMaze = "";
+        private String nanosMaze = "";
+    }
+
+    public static void main(String[] args) throws IOException {
+        var budgetFile = new File(args.length > 0 ? args[0] : "resources/regression-budgets.properties");
+        var directory = new File(args.length > 1 ? args[1] : "resources/mazes");
+        var budgets = new Properties();
+        try (var in = new FileInputStream(budgetFile)) {
+            budgets.load(in);
+        }
+
+        var mazes = new LinkedHashMap<String, Cell[][]>();
+        var files = directory.listFiles((dir, name) -> name.endsWith(".jpg") || name.endsWith(".png"));
+        if (files != null) {
+            Arrays.sort(files);
+            var loader = new MazeLoader();
+            for (File file : files)
+                mazes.put(file.getName(), loader.loadMaze(file));
+        }
+        mazes.putAll(Benchmark.generatedMazes());
+
+        var failures = new ArrayList<String>();
+        var worst = new EnumMap<Algorithm, Worst>(Algorithm.class);
+        var solver = new MazeSolver();
+        warmUp(solver, mazes.values().iterator().next());
+        for (var maze : mazes.entrySet()) {
+            solver.setMaze(maze.getValue());
+            var pairs = queryPairs(solver);
+            long openCells = Math.max(1, solver.getStatistics().openCells());
+
+            var lengths = new EnumMap<Algorithm, int[]>(Algorithm.class);
+            for (Algorithm algorithm : Algorithm.values()) {
+                var maxOpenCells = budgets.getProperty(algorithm.name() + ".maxOpenCells");
+                if (maxOpenCells != null && openCells > Long.parseLong(maxOpenCells))
+                    continue;
+                solver.clearCache(); // Every algorithm searches, none is answered from the paths of another
+                var measurement = Benchmark.measure(solver, algorithm, pairs);
+                if (measurement.medianMicros() < 0) {
+                    failures.add(String.format("%s on %s: a query ran out of its budget", algorithm, maze.getKey()));
+                    continue;
+                }
+                var algorithmWorst = worst.computeIfAbsent(algorithm, k -> new Worst());
+                double bytesPerCell = (double) measurement.medianBytes() / openCells;
+                double nanosPerCell = measurement.medianMicros() * 1_000.0 / openCells;
+                if (bytesPerCell > algorithmWorst.bytesPerCell) {
+                    algorithmWorst.bytesPerCell = bytesPerCell;
+                    algorithmWorst.bytesMaze = maze.getKey();
+                }
+                if (nanosPerCell > algorithmWorst.nanosPerCell) {
+                    algorithmWorst.nanosPerCell = nanosPerCell;
+                    algorithmWorst.nanosMaze = maze.getKey();
+                }
+
+                lengths.put(algorithm, pathLengths(solver, algorithm, pairs, maze.getKey(), failures));
+            }
+            checkLengths(budgets, lengths, pairs, maze.getKey(), failures);
+        }
+
+        System.out.printf("%-18s%16s%16s%16s%16s%n", "algorithm", "bytes/cell", "budget", "ns/cell", "budget");
+        for (var entry : worst.entrySet()) {
+            var algorithm = entry.getKey();
+            var measured = entry.getValue();
+            double bytesBudget = budget(budgets, algorithm, "bytesPerCell", failures);
+            double nanosBudget = budget(budgets, algorithm, "nanosPerCell", failures);
+            System.out.printf(Locale.ROOT, "%-18s%16.1f%16.1f%16.1f%16.1f%n", algorithm.name(),
+                    measured.bytesPerCell, bytesBudget, measured.nanosPerCell, nanosBudget);
+            if (measured.bytesPerCell > bytesBudget)
+                failures.add(String.format(Locale.ROOT, "%s allocated %.1f bytes per cell on %s, the budget is %.1f",
+                        algorithm, measured.bytesPerCell, measured.bytesMaze, bytesBudget));
+            if (measured.nanosPerCell > nanosBudget)
+                failures.add(String.format(Locale.ROOT, "%s took %.1f ns per cell on %s, the budget is %.1f",
+                        algorithm, measured.nanosPerCell, measured.nanosMaze, nanosBudget));
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("All checks passed");
+            return;
+        }
+        failures.forEach(failure -> System.out.println("FAILED: " + failure));
+        System.exit(1);
+    }
+
+    /**
+     * Run every algorithm before measuring, so the first measurements aren't of code that isn't compiled yet.
+     */
+    private static void warmUp(MazeSolver solver, Cell[][] maze) {
+        solver.setMaze(maze);
+        var pairs = queryPairs(solver);
+        for (int round = 0; round < 3; round++) {
+            for (Algorithm algorithm : Algorithm.values()) {
+                solver.clearCache();
+                Benchmark.measure(solver, algorithm, pairs);
+            }
+        }
+    }
+
+    /**
+     * @return The seeded queries of the maze, without queries whose start is the goal
+     */
+    private static List<Coordinate[]> queryPairs(MazeSolver solver) {
+        var pairs = new ArrayList<>(Benchmark.queryPairs(solver, QUERIES, new Random(SEED)));
+        pairs.removeIf(pair -> pair[0].equals(pair[1]));
+        return pairs;
+    }
+
+    /**
+     * Check that the path of every query leads from the start to the goal through open cells, one step at a time.
+     * The paths of the measurement that was just made are cached, so this doesn't search again.
+     *
+     * @return The number of cells of the path of every query
+     */
+    private static int[] pathLengths(MazeSolver solver, Algorithm algorithm, List<Coordinate[]> pairs,
+                                     String mazeName, List<String> failures) {
+        var maze = solver.getMaze();
+        var lengths = new int[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            var pair = pairs.get(i);
+            var trace = solver.solve(algorithm, pair[0], pair[1], SolveOptions.DEFAULT, SearchControl.unbounded());
+            var path = trace.getPath(pair[0], pair[1]); // Cell indexes, empty if the marked path is broken
+            lengths[i] = path.length;
+            int cols = maze[0].length;
+            String problem = null;
+            if (path.length == 0 || path[0] != pair[0].row() * cols + pair[0].col()
+                    || path[path.length - 1] != pair[1].row() * cols + pair[1].col())
+                problem = "doesn't lead from the start to the goal";
+            for (int step = 0; step < path.length && problem == null; step++) { // O(p)
+                int row = path[step] / cols;
+                int col = path[step] % cols;
+                if (path[step] < 0 || row >= maze.length || maze[row][col] == Cell.WALL)
+                    problem = String.format("enters the wall or outside cell (%d, %d)", row, col);
+                else if (step > 0 && Math.abs(row - path[step - 1] / cols) + Math.abs(col - path[step - 1] % cols) != 1)
+                    problem = String.format("jumps from (%d, %d) to (%d, %d)", path[step - 1] / cols,
+                            path[step - 1] % cols, row, col);
+            }
+            if (problem != null)
+                failures.add(String.format("%s found a path from %s to %s on %s that %s", algorithm, pair[0], pair[1],
+                        mazeName, problem));
+        }
+        return lengths;
+    }
+
+    /**
+     * Compare the path lengths of every algorithm with the shortest paths, found by the first algorithm that finds
+     * shortest paths.
+     */
+    private static void checkLengths(Properties budgets, Map<Algorithm, int[]> lengths, List<Coordinate[]> pairs,
+                                     String mazeName, List<String> failures) {
+        var shortestAlgorithm = lengths.keySet().stream().filter(Algorithm::isOptimal).findFirst().orElse(null);
+        if (shortestAlgorithm == null)
+            return;
+        int[] shortest = lengths.get(shortestAlgorithm);
+        for (var entry : lengths.entrySet()) {
+            var algorithm = entry.getKey();
+            double maxRatio = maxPathRatio(budgets, algorithm, failures);
+            for (int i = 0; i < pairs.size(); i++) {
+                // Steps rather than cells, the ratio bounds the cost of the path
+                int steps = entry.getValue()[i] - 1;
+                int shortestSteps = shortest[i] - 1;
+                if (steps > maxRatio * shortestSteps + 1e-9)
+                    failures.add(String.format(Locale.ROOT, "%s found a path of %d steps from %s to %s on %s, %s one "
+                                    + "of %d, at most %.2f times as long is allowed", algorithm, steps,
+                            pairs.get(i)[0], pairs.get(i)[1], mazeName, shortestAlgorithm, shortestSteps, maxRatio));
+            }
+        }
+    }
+
+    /**
+     * @return How many times longer than the shortest path the paths of the algorithm may be
+     */
+    private static double maxPathRatio(Properties budgets, Algorithm algorithm, List<String> failures) {
+        if (algorithm.isOptimal())
+            return 1;
+        if (algorithm == Algorithm.WEIGHTED_ASTAR || algorithm == Algorithm.ANYTIME_ASTAR)
+            return SolveOptions.DEFAULT.epsilon();
+        if ((algorithm == Algorithm.RACE || algorithm == Algorithm.AUTO) && SolveOptions.DEFAULT.requireOptimal())
+            return 1;
+        return budget(budgets, algorithm, "maxPathRatio", failures);
+    }
+
+    private static double budget(Properties budgets, Algorithm algorithm, String name, List<String> failures) {
+        var value = budgets.getProperty(algorithm.name() + "." + name);
+        if (value == null) {
+            failures.add("No budget " + algorithm.name() + "." + name);
+            return Double.POSITIVE_INFINITY;
+        }
+        return Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,161 @@
+import javax.swing.Timer;
+
+/**
+ * Replays the steps of a search on a MazeViewport, driven by a fixed-rate frame clock on the event dispatch thread.
+ * Every frame applies as many steps as the selected speed allows and repaints the changed tiles once.
+ */
+public class ReplayEngine {
+
+    private static final int FRAMES_PER_SECOND = 60;
+    private static final int MAX_STEPS_PER_FRAME = 250_000; // Keeps a single frame well below the frame time
+
+    private final MazeViewport viewport;
+    private final Runnable resetView;
+    private final ReplayListener listener;
+    private final Timer frameClock;
+    private TraceBuffer steps = new TraceBuffer(0, 0, false);
+    private Speed speed = Speed.ofFitToSeconds(5);
+    private int position;
+    private int countedSteps;
+    private double pendingSteps;
+    private long lastFrameTime;
+
+    /**
+     * Receives the progress of the replay, always called on the event dispatch thread.
+     */
+    public interface ReplayListener {
+
+        void progress(int position, int total, int countedSteps);
+
+        void finished();
+    }
+
+    /**
+     * Replay speed, either a fixed number of steps per second or a duration the whole replay should fit in.
+     */
+    public record Speed(String label, double stepsPerSecond, double fitSeconds) {
+
+        public static Speed ofStepsPerSecond(double stepsPerSecond) {
+            return new Speed(String.format("%,.0f steps/s", stepsPerSecond), stepsPerSecond, 0);
+        }
+
+        public static Speed ofFitToSeconds(double seconds) {
+            return new Speed(String.format("Fit to %.0f s", seconds), 0, seconds);
+        }
+
+        double rate(int totalSteps) {
+            return this.fitSeconds > 0 ? Math.max(1, totalSteps / this.fitSeconds) : this.stepsPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return this.label;
+        }
+    }
+
+    ReplayEngine(MazeViewport viewport, Runnable resetView, ReplayListener listener) {
+        this.viewport = viewport;
+        this.resetView = resetView;
+        this.listener = listener;
+        this.frameClock = new Timer(1000 / FRAMES_PER_SECOND, e -> this.frame());
+        this.frameClock.setCoalesce(true);
+    }
+
+    /**
+     * Load the steps of a search and start replaying them from the beginning.
+     *
+     * @param steps The steps to replay, in order
+     */
+    public void play(TraceBuffer steps) {
+        this.steps = steps;
+        this.seek(0);
+        this.resume();
+    }
+
+    public void setSpeed(Speed speed) {
+        this.speed = speed;
+    }
+
+    public boolean isPlaying() {
+        return this.frameClock.isRunning();
+    }
+
+    public void pause() {
+        this.frameClock.stop();
+    }
+
+    public void resume() {
+        if (this.position >= this.steps.size()) {
+            this.finish();
+            return;
+        }
+        this.pendingSteps = 0;
+        this.lastFrameTime = System.nanoTime();
+        this.frameClock.start();
+    }
+
+    /**
+     * Apply a single step, pausing the replay.
+     */
+    public void step() {
+        this.pause();
+        this.seek(this.position + 1);
+    }
+
+    /**
+     * Apply all remaining steps at once.
+     */
+    public void skipToEnd() {
+        this.seek(this.steps.size());
+    }
+
+    /**
+     * Move the replay to the given step. Seeking backwards restores the maze and replays up to the step.
+     *
+     * Time complexity: O(n) when seeking backwards, O(target - position) otherwise
+     *
+     * @param target The number of steps that should be applied
+     */
+    public void seek(int target) {
+        target = Math.max(0, Math.min(this.steps.size(), target));
+        if (target < this.position || target == 0) {
+            this.resetView.run();
+            this.position = 0;
+            this.countedSteps = 0;
+        }
+        this.applyUntil(target);
+    }
+
+    /**
+     * Called by the frame clock. Applies the number of steps that fit in the time since the last frame.
+     */
+    private void frame() {
+        long now = System.nanoTime();
+        this.pendingSteps += (now - this.lastFrameTime) / 1e9 * this.speed.rate(this.steps.size());
+        this.lastFrameTime = now;
+
+        int stepsThisFrame = (int) Math.min(MAX_STEPS_PER_FRAME, this.pendingSteps);
+        this.pendingSteps -= stepsThisFrame;
+        this.applyUntil(this.position + stepsThisFrame);
+    }
+
+    private void applyUntil(int target) {
+        target = Math.min(this.steps.size(), target);
+        for (; this.position < target; this.position++) {
+            var state = this.steps.getState(this.position);
+            this.viewport.updateCell(this.steps.getRow(this.position), this.steps.getCol(this.position), state);
+            if (state != Cell.PATH || this.steps.hasParent(this.position))
+                this.countedSteps++;
+        }
+        this.viewport.flushRepaint(); // One repaint per frame regardless of the number of steps
+
+        this.listener.progress(this.position, this.steps.size(), this.countedSteps);
+        if (this.position >= this.steps.size())
+            this.finish();
+    }
+
+    private void finish() {
+        this.frameClock.stop();
+        this.listener.finished();
+    }
+}
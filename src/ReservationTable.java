@@ -0,0 +1,95 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Which agent occupies a cell at a timestep, shared by agents that are planned at the same time.
+ * An open-addressed hash table with linear probing over a long key per (cell, timestep). Slots are claimed with a
+ * compare-and-set of the key, so reservations are added and looked up without locks. The table doesn't grow, it is
+ * sized for the most reservations it will hold.
+ */
+public class ReservationTable {
+
+    public static final int NONE = -1;
+    private static final long EMPTY = 0; // Keys are stored plus one, so 0 is never a key
+
+    private final AtomicLongArray keys;
+    private final AtomicIntegerArray agents; // Agent plus one, 0 while the agent of a claimed slot is being written
+    private final int mask;
+
+    /**
+     * @param maxReservations Most reservations the table will hold
+     */
+    public ReservationTable(long maxReservations) {
+        long capacity = Long.highestOneBit(Math.max(16, maxReservations * 2 - 1)) << 1; // At most half full
+        if (capacity > 1 << 30)
+            throw new IllegalArgumentException("Too many reservations: " + maxReservations);
+        this.keys = new AtomicLongArray((int) capacity);
+        this.agents = new AtomicIntegerArray((int) capacity);
+        this.mask = (int) capacity - 1;
+    }
+
+    /**
+     * Reserve a cell at a timestep for an agent.
+     *
+     * Time complexity: O(1) expected
+     *
+     * @return true if the cell is reserved for the agent, false if it is reserved for another agent
+     */
+    public boolean reserve(int cell, int time, int agent) {
+        long key = key(cell, time);
+        for (int slot = slot(key); ; slot = (slot + 1) & this.mask) {
+            long current = this.keys.get(slot);
+            if (current == EMPTY) {
+                if (!this.keys.compareAndSet(slot, EMPTY, key)) {
+                    slot = (slot - 1) & this.mask; // Claimed by another thread meanwhile, look at it again
+                    continue;
+                }
+                this.agents.set(slot, agent + 1);
+                return true;
+            }
+            if (current == key)
+                return this.agentAt(slot) == agent;
+        }
+    }
+
+    /**
+     * Time complexity: O(1) expected
+     *
+     * @return The agent that reserved the cell at the timestep, or NONE
+     */
+    public int getAgent(int cell, int time) {
+        long key = key(cell, time);
+        for (int slot = slot(key); ; slot = (slot + 1) & this.mask) {
+            long current = this.keys.get(slot);
+            if (current == EMPTY)
+                return NONE;
+            if (current == key)
+                return this.agentAt(slot);
+        }
+    }
+
+    /**
+     * @return Bytes used by the table
+     */
+    public long memoryBytes() {
+        return (long) this.keys.length() * (Long.BYTES + Integer.BYTES);
+    }
+
+    private int agentAt(int slot) {
+        int agent;
+        while ((agent = this.agents.get(slot)) == 0) // The reserving thread is between claiming and writing
+            Thread.onSpinWait();
+        return agent - 1;
+    }
+
+    private static long key(int cell, int time) {
+        return ((long) time << 32 | cell) + 1;
+    }
+
+    private int slot(long key) {
+        key ^= key >>> 33; // Finalizer of MurmurHash3, spreads neighbouring cells and timesteps over the table
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & this.mask;
+    }
+}
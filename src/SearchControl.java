@@ -0,0 +1,177 @@
+import java.util.function.LongConsumer;
+
+/**
+ * Cooperative control of a running search. The search loops call checkpoint once per expanded node, which counts the
+ * node, reports progress and tells the search to stop if it was cancelled or ran out of its time or node budget.
+ */
+public class SearchControl {
+
+    private static final int CHECK_INTERVAL = 1024; // Nodes between reading the clock and reporting progress
+
+    private final long deadline;
+    private final long nodeBudget;
+    private final LongConsumer progressListener;
+    private final SearchControl parent;
+    private SolutionListener solutionListener;
+    private volatile boolean cancelled;
+    private volatile StopReason stopReason = StopReason.NONE;
+    private long expandedNodes;
+    private volatile String summary;
+
+    /**
+     * Receives the solutions of anytime searches as they improve, called on the searching thread.
+     */
+    public interface SolutionListener {
+
+        void improvedSolution(TraceBuffer trace, int pathCost, double epsilon);
+    }
+
+    public enum StopReason {
+        NONE, CANCELLED, TIME_BUDGET, NODE_BUDGET
+    }
+
+    /**
+     * A time and node budget for a single solve, 0 means unlimited.
+     */
+    public record Budget(String label, long timeMillis, long nodes) {
+
+        public static final Budget UNLIMITED = new Budget("No budget", 0, 0);
+
+        public static Budget ofMillis(long timeMillis) {
+            return new Budget(String.format("%,d ms", timeMillis), timeMillis, 0);
+        }
+
+        public static Budget ofNodes(long nodes) {
+            return new Budget(String.format("%,d nodes", nodes), 0, nodes);
+        }
+
+        @Override
+        public String toString() {
+            return this.label;
+        }
+    }
+
+    /**
+     * @param budget           The budget of the search, starting now
+     * @param progressListener Receives the number of expanded nodes periodically, called on the searching thread
+     */
+    public SearchControl(Budget budget, LongConsumer progressListener) {
+        this.deadline = budget.timeMillis() > 0 ? System.nanoTime() + budget.timeMillis() * 1_000_000 : Long.MAX_VALUE;
+        this.nodeBudget = budget.nodes() > 0 ? budget.nodes() : Long.MAX_VALUE;
+        this.progressListener = progressListener;
+        this.parent = null;
+    }
+
+    private SearchControl(SearchControl parent) {
+        this.deadline = parent.deadline;
+        this.nodeBudget = parent.nodeBudget;
+        this.progressListener = null;
+        this.parent = parent;
+    }
+
+    public static SearchControl unbounded() {
+        return new SearchControl(Budget.UNLIMITED, null);
+    }
+
+    /**
+     * Create a control for one of several searches run on behalf of this one. The child has the same budget, counts
+     * its own nodes and is cancelled when this control is cancelled.
+     *
+     * @return The control of the child search
+     */
+    public SearchControl createChild() {
+        return new SearchControl(this);
+    }
+
+    /**
+     * Take over the result of the child whose search is used as the result of this search: its expanded nodes and,
+     * if it was stopped, the reason it stopped.
+     *
+     * @param child The control of the child search, no longer running
+     */
+    public void adopt(SearchControl child) {
+        this.expandedNodes += child.expandedNodes;
+        if (this.stopReason == StopReason.NONE)
+            this.stopReason = child.stopReason;
+    }
+
+    public void setSolutionListener(SolutionListener solutionListener) {
+        this.solutionListener = solutionListener;
+    }
+
+    /**
+     * Publish a solution that is better than the previous one.
+     *
+     * @param trace    The steps of the search that found the solution
+     * @param pathCost Cost of the path
+     * @param epsilon  The path is at most epsilon times the optimal path
+     */
+    public void reportSolution(TraceBuffer trace, int pathCost, double epsilon) {
+        if (this.solutionListener != null)
+            this.solutionListener.improvedSolution(trace, pathCost, epsilon);
+    }
+
+    /**
+     * Request the search to stop at its next checkpoint. Safe to call from any thread.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled || this.parent != null && this.parent.isCancelled();
+    }
+
+    /**
+     * Count an expanded node and check if the search should stop.
+     *
+     * Time complexity: O(1)
+     *
+     * @return true if the search should stop
+     */
+    public boolean checkpoint() {
+        if (this.stopReason != StopReason.NONE)
+            return true;
+
+        this.expandedNodes++;
+        if (this.isCancelled())
+            this.stopReason = StopReason.CANCELLED;
+        else if (this.expandedNodes > this.nodeBudget)
+            this.stopReason = StopReason.NODE_BUDGET;
+        else if (this.expandedNodes % CHECK_INTERVAL == 0) {
+            if (System.nanoTime() - this.deadline > 0)
+                this.stopReason = StopReason.TIME_BUDGET;
+            else if (this.progressListener != null)
+                this.progressListener.accept(this.expandedNodes);
+        }
+        return this.stopReason != StopReason.NONE;
+    }
+
+    /**
+     * @return true if the search stopped before it was finished
+     */
+    public boolean isStopped() {
+        return this.stopReason != StopReason.NONE;
+    }
+
+    public StopReason getStopReason() {
+        return this.stopReason;
+    }
+
+    public long getExpandedNodes() {
+        return this.expandedNodes;
+    }
+
+    /**
+     * Describe how the search was run, for solvers that choose what to run themselves. Shown with the result.
+     *
+     * @param summary A short description of the choice, or null
+     */
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public String getSummary() {
+        return this.summary;
+    }
+}
@@ -0,0 +1,253 @@
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The per cell state and the open list of a best-first search, in primitive arrays that are reused by the searches
+ * instead of being allocated by every search.
+ * A search checks a workspace out of a shared pool and returns it when it is done. The pool keeps at most one
+ * workspace per processor, the workspaces of searches that run beyond that are left to the garbage collector, so the
+ * pool holds at most MAX_POOLED times about 25 bytes per cell of the largest maze searched.
+ * A cell has state in the current search if its stamp is the generation of the search, so starting a search is an
+ * increment of the generation instead of clearing the arrays. The arrays only grow, once the pooled workspaces have
+ * searched the largest maze the searches allocate nothing but their results.
+ * The open list is a binary heap of (priority, cell, cost) entries. A cell that is reached again with a lower cost is
+ * queued again, and its older entries are skipped when they are polled.
+ */
+public class SearchWorkspace {
+
+    public static final int NO_PARENT = -1;
+    // Flags of a cell
+    public static final byte EXPANDED = 0b1;
+    public static final byte ON_PATH = 0b10;
+
+    public static final int MAX_POOLED = Runtime.getRuntime().availableProcessors();
+
+    private static final Queue<SearchWorkspace> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger(); // Size of the pool, counted before adding
+    private static final int INITIAL_HEAP_CAPACITY = 1024;
+
+    private int[] stamps = new int[0];
+    private int[] costs = new int[0];
+    private int[] estimates = new int[0];
+    private int[] parents = new int[0];
+    private byte[] flags = new byte[0];
+    private int[] discovered = new int[0]; // The reached cells in the order they were first reached
+    private int discoveredCount;
+    private int generation;
+
+    private double[] heapPriorities = new double[INITIAL_HEAP_CAPACITY];
+    private int[] heapCells = new int[INITIAL_HEAP_CAPACITY];
+    private int[] heapCosts = new int[INITIAL_HEAP_CAPACITY]; // Cost of the cell when it was queued
+    private int heapSize;
+
+    /**
+     * Check a workspace out of the pool, or create one if the pool is empty. It must be returned with release once
+     * the search and its result no longer use it.
+     *
+     * Time complexity: O(1)
+     *
+     * @return A workspace used by no other search
+     */
+    public static SearchWorkspace acquire() {
+        var workspace = POOL.poll();
+        if (workspace == null)
+            return new SearchWorkspace();
+        POOLED.decrementAndGet();
+        return workspace;
+    }
+
+    /**
+     * Return a workspace to the pool, it is dropped if the pool is full.
+     *
+     * Time complexity: O(1)
+     *
+     * @param workspace A workspace checked out with acquire
+     */
+    public static void release(SearchWorkspace workspace) {
+        if (POOLED.incrementAndGet() <= MAX_POOLED)
+            POOL.add(workspace);
+        else
+            POOLED.decrementAndGet();
+    }
+
+    /**
+     * @return Number of workspaces in the pool
+     */
+    public static int pooledCount() {
+        return POOL.size();
+    }
+
+    /**
+     * Time complexity: O(MAX_POOLED)
+     *
+     * @return Bytes used by the workspaces in the pool
+     */
+    public static long pooledBytes() {
+        long bytes = 0;
+        for (var workspace : POOL)
+            bytes += workspace.memoryBytes();
+        return bytes;
+    }
+
+    /**
+     * Start a new search, the state of the previous search is forgotten.
+     *
+     * Time complexity: O(1), O(N) when the workspace grows or the generation wraps around
+     * Where N is the number of cells.
+     *
+     * @param cellCount Number of cells of the maze to search
+     */
+    public void reset(int cellCount) {
+        if (this.stamps.length < cellCount) {
+            this.stamps = new int[cellCount];
+            this.costs = new int[cellCount];
+            this.estimates = new int[cellCount];
+            this.parents = new int[cellCount];
+            this.flags = new byte[cellCount];
+            this.discovered = new int[cellCount];
+            this.generation = 0;
+        }
+        if (++this.generation == Integer.MAX_VALUE) { // The old stamps would be mistaken for new ones
+            Arrays.fill(this.stamps, 0);
+            this.generation = 1;
+        }
+        this.discoveredCount = 0;
+        this.heapSize = 0;
+    }
+
+    /**
+     * @return Bytes used by the workspace
+     */
+    public long memoryBytes() {
+        return (long) this.stamps.length * (5 * Integer.BYTES + 1)
+                + (long) this.heapCells.length * (Double.BYTES + 2 * Integer.BYTES);
+    }
+
+    public boolean isReached(int cell) {
+        return this.stamps[cell] == this.generation;
+    }
+
+    /**
+     * @return The cost of reaching the cell, Integer.MAX_VALUE if it isn't reached
+     */
+    public int getCost(int cell) {
+        return this.isReached(cell) ? this.costs[cell] : Integer.MAX_VALUE;
+    }
+
+    public int getEstimate(int cell) {
+        return this.estimates[cell];
+    }
+
+    public int getParent(int cell) {
+        return this.parents[cell];
+    }
+
+    /**
+     * Reach a cell, or reach it again with a lower cost.
+     *
+     * @param cell     The cell
+     * @param cost     The cost of reaching it
+     * @param estimate The estimated cost from the cell to the goal, only used when the cell is first reached
+     * @param parent   The cell it is reached from, or NO_PARENT
+     */
+    public void reach(int cell, int cost, int estimate, int parent) {
+        if (!this.isReached(cell)) {
+            this.stamps[cell] = this.generation;
+            this.estimates[cell] = estimate;
+            this.flags[cell] = 0;
+            this.discovered[this.discoveredCount++] = cell;
+        }
+        this.costs[cell] = cost;
+        this.parents[cell] = parent;
+    }
+
+    public boolean hasFlag(int cell, byte flag) {
+        return (this.flags[cell] & flag) != 0;
+    }
+
+    public void setFlag(int cell, byte flag) {
+        this.flags[cell] |= flag;
+    }
+
+    /**
+     * @return Number of reached cells
+     */
+    public int getDiscoveredCount() {
+        return this.discoveredCount;
+    }
+
+    /**
+     * @return The reached cell at the position in the order the cells were first reached
+     */
+    public int getDiscovered(int index) {
+        return this.discovered[index];
+    }
+
+    /**
+     * Queue a cell with its current cost.
+     *
+     * Time complexity: O(log q) where q is the number of queued entries
+     */
+    public void push(int cell, double priority) {
+        if (this.heapSize == this.heapCells.length) {
+            this.heapPriorities = Arrays.copyOf(this.heapPriorities, this.heapSize * 2);
+            this.heapCells = Arrays.copyOf(this.heapCells, this.heapSize * 2);
+            this.heapCosts = Arrays.copyOf(this.heapCosts, this.heapSize * 2);
+        }
+        int index = this.heapSize++;
+        int cost = this.costs[cell];
+        while (index > 0 && this.heapPriorities[(index - 1) / 2] > priority) {
+            this.moveEntry((index - 1) / 2, index);
+            index = (index - 1) / 2;
+        }
+        this.setEntry(index, priority, cell, cost);
+    }
+
+    /**
+     * Remove the cell with the lowest priority, skipping the entries of cells that were queued again since.
+     *
+     * Time complexity: O(log q) amortized
+     *
+     * @return The cell, or -1 if the queue is empty
+     */
+    public int poll() {
+        while (this.heapSize > 0) {
+            int cell = this.heapCells[0];
+            int cost = this.heapCosts[0];
+            this.removeTop();
+            if (cost == this.costs[cell])
+                return cell;
+        }
+        return -1;
+    }
+
+    private void removeTop() {
+        int last = --this.heapSize;
+        double priority = this.heapPriorities[last];
+        int cell = this.heapCells[last];
+        int cost = this.heapCosts[last];
+        int index = 0;
+        while (2 * index + 1 < this.heapSize) {
+            int child = 2 * index + 1;
+            if (child + 1 < this.heapSize && this.heapPriorities[child + 1] < this.heapPriorities[child])
+                child++;
+            if (this.heapPriorities[child] >= priority)
+                break;
+            this.moveEntry(child, index);
+            index = child;
+        }
+        this.setEntry(index, priority, cell, cost);
+    }
+
+    private void moveEntry(int from, int to) {
+        this.setEntry(to, this.heapPriorities[from], this.heapCells[from], this.heapCosts[from]);
+    }
+
+    private void setEntry(int index, double priority, int cell, int cost) {
+        this.heapPriorities[index] = priority;
+        this.heapCells[index] = cell;
+        this.heapCosts[index] = cost;
+    }
+}
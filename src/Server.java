@@ -0,0 +1,383 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the solver as a local HTTP service instead of a desktop app. Mazes are registered once and stay loaded, every
+ * request is handled on its own thread.
+ *
+ * POST /mazes               Register a maze, the body is a maze image or the query parameter path is an image file
+ *                           in the maze directory. The query parameter costs=true loads the gray levels of the
+ *                           image as the cost of the cells. A maze that is already registered is returned as it is
+ * GET  /mazes               List the registered mazes
+ * POST /solve               Solve with the form parameters maze, start and goal (row,col), and optionally algorithm,
+ *                           epsilon, optimal, fill and budget (milliseconds). The path and the statistics of the
+ *                           search are returned as JSON, or with trace=true every step of the search is streamed as a
+ *                           line of JSON in a chunked response, followed by the statistics.
+ *
+ * Usage: java Server [port] [maze images to register...]
+ * The maze directory is resources/mazes, or the directory of the system property maze.directory.
+ */
+public class Server {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 4096; // Pending connections, so bursts of requests queue instead of failing
+    private static final long DEFAULT_BUDGET_MILLIS = 10_000;
+    // Searches are bound by the processors, running more at once only adds memory, the rest of the requests wait
+    private static final int CONCURRENT_SOLVES = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final Map<String, MazeSolver> mazes = new ConcurrentHashMap<>();
+    private final Path mazeDirectory;
+    private final Semaphore solves = new Semaphore(CONCURRENT_SOLVES, true);
+    private final MazeLoader mazeLoader = new MazeLoader();
+    private final HttpServer httpServer;
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        var server = new Server(port, new File(System.getProperty("maze.directory", "resources/mazes")));
+        for (int i = 1; i < args.length; i++)
+            System.out.println("Registered " + args[i] + " as "
+                    + server.register(new File(args[i]), false));
+        server.start();
+        System.out.println("Listening on http://localhost:" + server.getPort());
+    }
+
+    /**
+     * @param port          The port to listen on, 0 for any free port
+     * @param mazeDirectory The only directory the path parameter of a registration may name files in
+     */
+    public Server(int port, File mazeDirectory) throws IOException {
+        this.mazeDirectory = mazeDirectory.toPath().toAbsolutePath().normalize();
+        this.httpServer = HttpServer.create(new InetSocketAddress("localhost", port), BACKLOG);
+        this.httpServer.setExecutor(requestExecutor());
+        this.httpServer.createContext("/mazes", exchange -> this.handle(exchange, false, this::mazes));
+        this.httpServer.createContext("/solve", exchange -> this.handle(exchange, true, this::solve));
+    }
+
+    public void start() {
+        this.httpServer.start();
+    }
+
+    public void stop() {
+        this.httpServer.stop(0);
+    }
+
+    public int getPort() {
+        return this.httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Load and register a maze. A maze that is already registered keeps its solver and preprocessing, it is looked up
+     * before the maze is preprocessed again.
+     *
+     * Time complexity: O(nm) to load the maze, plus the preprocessing of MazeSolver.setMaze for a new maze
+     *
+     * @param mazeImage Image of the maze
+     * @param grayCosts Load the gray levels of the image as the cost of the cells
+     * @return The id of the maze
+     */
+    public String register(File mazeImage, boolean grayCosts) {
+        Cell[][] maze;
+        byte[] costs = null;
+        if (grayCosts) {
+            var weighted = this.mazeLoader.loadWeightedMaze(mazeImage);
+            maze = weighted.maze();
+            costs = weighted.costs();
+        } else {
+            maze = this.mazeLoader.loadMaze(mazeImage);
+        }
+        String id = Long.toHexString(MazeSolver.mazeHash(maze, costs));
+        if (this.mazes.containsKey(id))
+            return id;
+
+        var solver = new MazeSolver();
+        solver.setMaze(maze, costs);
+        this.mazes.putIfAbsent(id, solver);
+        return id;
+    }
+
+    /**
+     * A thread per request. Virtual threads are used when the runtime has them (Java 21), they are looked up
+     * reflectively so the server also runs on older runtimes, with a pool of platform threads instead.
+     */
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads are not available, handling requests on platform threads");
+            return Executors.newCachedThreadPool(runnable -> {
+                var thread = new Thread(runnable, "request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private interface Handler {
+
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+
+    /**
+     * A request that can't be served, answered with the status and message of the exception.
+     */
+    private static class RequestException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * @param formBody true if the body of the requests is a form, otherwise the parameters are only in the query
+     */
+    private void handle(HttpExchange exchange, boolean formBody, Handler handler) {
+        try (exchange) {
+            try {
+                handler.handle(exchange, parameters(exchange, formBody));
+            } catch (RequestException e) {
+                sendJson(exchange, e.status, "{\"error\":" + quote(e.getMessage()) + "}");
+            } catch (NumberFormatException e) {
+                sendJson(exchange, 400, "{\"error\":" + quote("Not a number: " + e.getMessage()) + "}");
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                sendJson(exchange, 500, "{\"error\":" + quote(String.valueOf(e)) + "}");
+            }
+        } catch (IOException e) {
+            e.printStackTrace(); // The client went away, nothing left to answer
+        }
+    }
+
+    private void mazes(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        switch (exchange.getRequestMethod()) {
+            case "GET" -> {
+                var json = new StringJoiner(",", "[", "]");
+                this.mazes.forEach((id, solver) -> json.add(mazeJson(id, solver)));
+                sendJson(exchange, 200, json.toString());
+            }
+            case "POST" -> {
+                boolean grayCosts = Boolean.parseBoolean(parameters.getOrDefault("costs", "false"));
+                String id;
+                if (parameters.containsKey("path")) {
+                    id = this.registerImage(this.mazeFile(parameters.get("path")), grayCosts);
+                } else {
+                    var upload = Files.createTempFile("maze", ".img").toFile();
+                    try {
+                        Files.write(upload.toPath(), exchange.getRequestBody().readAllBytes());
+                        id = this.registerImage(upload, grayCosts);
+                    } finally {
+                        upload.delete();
+                    }
+                }
+                sendJson(exchange, 200, mazeJson(id, this.mazes.get(id)));
+            }
+            default -> throw new RequestException(405, "Use GET or POST");
+        }
+    }
+
+    /**
+     * Resolve the path parameter of a registration in the maze directory. Paths that lead out of the directory,
+     * also through links, are refused.
+     */
+    private File mazeFile(String path) {
+        try {
+            var file = this.mazeDirectory.resolve(path).normalize();
+            if (file.startsWith(this.mazeDirectory) && Files.isRegularFile(file)
+                    && file.toRealPath().startsWith(this.mazeDirectory.toRealPath()))
+                return file.toFile();
+        } catch (InvalidPathException | IOException e) {
+            // Refused below, like any other path outside of the directory
+        }
+        throw new RequestException(403, "No maze " + path + " in the maze directory");
+    }
+
+    private String registerImage(File mazeImage, boolean grayCosts) {
+        if (!mazeImage.isFile())
+            throw new RequestException(400, "No such file: " + mazeImage);
+        try {
+            return this.register(mazeImage, grayCosts);
+        } catch (RuntimeException e) {
+            throw new RequestException(400, "Not a maze image: " + e);
+        }
+    }
+
+    private void solve(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST"))
+            throw new RequestException(405, "Use POST");
+        String id = required(parameters, "maze");
+        var solver = this.mazes.get(id);
+        if (solver == null)
+            throw new RequestException(404, "No maze with id " + id);
+        var start = coordinate(solver, parameters, "start");
+        var goal = coordinate(solver, parameters, "goal");
+        var algorithm = algorithm(parameters.getOrDefault("algorithm", Algorithm.AUTO.name()));
+        var epsilon = parameters.getOrDefault("epsilon", "" + SolveOptions.DEFAULT.epsilon());
+        var options = SolveOptions.DEFAULT
+                .withEpsilon(Double.parseDouble(epsilon))
+                .withRequireOptimal(Boolean.parseBoolean(parameters.getOrDefault("optimal", "true")))
+                .withFillDeadEnds(Boolean.parseBoolean(parameters.getOrDefault("fill", "false")));
+        long budget = Long.parseLong(parameters.getOrDefault("budget", "" + DEFAULT_BUDGET_MILLIS));
+
+        SearchControl control;
+        TraceBuffer trace;
+        long elapsed;
+        try {
+            this.solves.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestException(503, "Interrupted while waiting for a free solver");
+        }
+        try {
+            control = new SearchControl(SearchControl.Budget.ofMillis(budget), null);
+            long started = System.nanoTime();
+            trace = solver.solve(algorithm, start, goal, options, control);
+            elapsed = System.nanoTime() - started;
+        } finally {
+            this.solves.release();
+        }
+
+        var statistics = String.format(Locale.ROOT,
+                "\"maze\":%s,\"algorithm\":%s,\"expandedNodes\":%d,\"stopped\":%s,\"microseconds\":%d,\"summary\":%s",
+                quote(id), quote(algorithm.name()), control.getExpandedNodes(),
+                control.isStopped() ? quote(control.getStopReason().toString()) : "null", elapsed / 1_000,
+                control.getSummary() != null ? quote(control.getSummary()) : "null");
+        var path = trace.getPath(start, goal);
+
+        if (Boolean.parseBoolean(parameters.getOrDefault("trace", "false"))) {
+            streamTrace(exchange, trace, "{" + statistics + ",\"length\":" + path.length + "}");
+            return;
+        }
+        var json = new StringBuilder("{").append(statistics).append(",\"length\":").append(path.length)
+                .append(",\"path\":[");
+        for (int i = 0; i < path.length; i++)
+            json.append(i > 0 ? ",[" : "[").append(path[i] / trace.getCols()).append(',')
+                    .append(path[i] % trace.getCols()).append(']');
+        sendJson(exchange, 200, json.append("]}").toString());
+    }
+
+    /**
+     * Write every step of the trace as a line of JSON, in a chunked response so the trace is never held as text.
+     *
+     * Time complexity: O(n) where n is the number of steps
+     */
+    private static void streamTrace(HttpExchange exchange, TraceBuffer trace, String statistics) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0); // Length 0 is a chunked response
+        try (var writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(),
+                StandardCharsets.UTF_8), 1 << 16)) {
+            for (int i = 0; i < trace.size(); i++) {
+                writer.write("{\"row\":" + trace.getRow(i) + ",\"col\":" + trace.getCol(i) + ",\"state\":\""
+                        + trace.getState(i) + "\"}\n");
+            }
+            writer.write(statistics);
+            writer.write('\n');
+        }
+    }
+
+    private static String mazeJson(String id, MazeSolver solver) {
+        var statistics = solver.getStatistics();
+        var cache = solver.getCacheStatistics();
+        return String.format(Locale.ROOT,
+                "{\"id\":%s,\"rows\":%d,\"cols\":%d,\"statistics\":%s,\"cache\":{\"hits\":%d,\"reversedHits\":%d,"
+                        + "\"misses\":%d,\"evictions\":%d,\"entries\":%d,\"bytes\":%d,\"hitRate\":%.3f}}",
+                quote(id), statistics.rows(), statistics.cols(), quote(statistics.toString()), cache.hits(),
+                cache.reversedHits(), cache.misses(), cache.evictions(), cache.entries(), cache.bytes(),
+                cache.hitRate());
+    }
+
+    private static Coordinate coordinate(MazeSolver solver, Map<String, String> parameters, String name) {
+        String[] parts = required(parameters, name).split(",");
+        try {
+            var coordinate = new Coordinate(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            var maze = solver.getMaze();
+            if (coordinate.row() < 0 || coordinate.row() >= maze.length || coordinate.col() < 0
+                    || coordinate.col() >= maze[0].length)
+                throw new RequestException(400, name + " is outside of the maze");
+            if (maze[coordinate.row()][coordinate.col()] == Cell.WALL)
+                throw new RequestException(400, name + " is a wall");
+            return coordinate;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new RequestException(400, name + " must be row,col");
+        }
+    }
+
+    private static Algorithm algorithm(String name) {
+        try {
+            return Algorithm.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, "Unknown algorithm " + name + ", use one of "
+                    + Arrays.stream(Algorithm.values()).map(Algorithm::name).toList());
+        }
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        var value = parameters.get(name);
+        if (value == null)
+            throw new RequestException(400, "Missing parameter " + name);
+        return value;
+    }
+
+    /**
+     * The parameters of the query string, and of the body if it is a form.
+     */
+    private static Map<String, String> parameters(HttpExchange exchange, boolean formBody) throws IOException {
+        var parameters = new HashMap<String, String>();
+        parseForm(exchange.getRequestURI().getRawQuery(), parameters);
+        var contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (formBody && contentType != null && contentType.startsWith("application/x-www-form-urlencoded"))
+            parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), parameters);
+        return parameters;
+    }
+
+    private static void parseForm(String form, Map<String, String> parameters) {
+        if (form == null || form.isEmpty())
+            return;
+        for (String pair : form.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0)
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static String quote(String text) {
+        var quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                default -> {
+                    if (c < ' ')
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    else
+                        quoted.append(c);
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
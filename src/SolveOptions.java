@@ -0,0 +1,29 @@
+/**
+ * Options that tune how MazeSolver runs an algorithm.
+ *
+ * @param epsilon        Suboptimality bound of weighted and anytime A*, the path found is at most epsilon times the
+ *                       optimal
+ * @param fillDeadEnds   Fill the dead ends between start and goal before searching, see DeadEndFilter
+ * @param requireOptimal Only accept shortest paths from solvers that choose the algorithm themselves
+ */
+public record SolveOptions(double epsilon, boolean fillDeadEnds, boolean requireOptimal) {
+
+    public static final SolveOptions DEFAULT = new SolveOptions(2.0, false, true);
+
+    public SolveOptions {
+        if (epsilon < 1)
+            throw new IllegalArgumentException("epsilon must be at least 1, was " + epsilon);
+    }
+
+    public SolveOptions withEpsilon(double epsilon) {
+        return new SolveOptions(epsilon, this.fillDeadEnds, this.requireOptimal);
+    }
+
+    public SolveOptions withFillDeadEnds(boolean fillDeadEnds) {
+        return new SolveOptions(this.epsilon, fillDeadEnds, this.requireOptimal);
+    }
+
+    public SolveOptions withRequireOptimal(boolean requireOptimal) {
+        return new SolveOptions(this.epsilon, this.fillDeadEnds, requireOptimal);
+    }
+}
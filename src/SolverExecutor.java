@@ -0,0 +1,118 @@
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Runs solves in the background with at most one active solve at a time.
+ * Submitting a new solve cancels the active one, which stops at the next checkpoint of its search loop.
+ * A cancelled solve keeps reading the maze until then, cancelAndWait also waits for it to stop.
+ * All listener methods are called on the event dispatch thread.
+ */
+public class SolverExecutor {
+
+    private final MazeSolver solver;
+    private SwingWorker<TraceBuffer, Long> activeWorker;
+    private SearchControl activeControl;
+    // The started solves including the cancelled ones, read by cancelAndWait on any thread
+    private final List<SwingWorker<TraceBuffer, Long>> running = new CopyOnWriteArrayList<>();
+
+    public interface SolveListener {
+
+        void progress(long expandedNodes);
+
+        void improved(int pathCost, double epsilon);
+
+        void done(TraceBuffer trace, SearchControl control);
+    }
+
+    SolverExecutor(MazeSolver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Start a solve, cancelling the active solve if there is one. Must be called on the event dispatch thread.
+     *
+     * @param algorithm The algorithm to solve with
+     * @param start     Where to start in the maze
+     * @param goal      Where the goal is in the maze
+     * @param options   Options of the algorithm
+     * @param budget    Time and node budget of the solve
+     * @param listener  Receives the progress and the result, not called if the solve is superseded
+     */
+    public void submit(Algorithm algorithm, Coordinate start, Coordinate goal, SolveOptions options,
+                       SearchControl.Budget budget, SolveListener listener) {
+        this.cancel();
+
+        var worker = new SwingWorker<TraceBuffer, Long>() {
+            private final SearchControl control = new SearchControl(budget, this::publish);
+
+            @Override
+            protected TraceBuffer doInBackground() {
+                var worker = this;
+                this.control.setSolutionListener((trace, pathCost, epsilon) -> SwingUtilities.invokeLater(() -> {
+                    if (activeWorker == worker)
+                        listener.improved(pathCost, epsilon);
+                }));
+                return solver.solve(algorithm, start, goal, options, this.control);
+            }
+
+            @Override
+            protected void process(List<Long> chunks) {
+                if (activeWorker == this)
+                    listener.progress(chunks.get(chunks.size() - 1));
+            }
+
+            @Override
+            protected void done() {
+                running.remove(this);
+                if (activeWorker != this) // Superseded by a newer solve
+                    return;
+                activeWorker = null;
+                activeControl = null;
+                try {
+                    listener.done(this.get(), this.control);
+                } catch (InterruptedException | ExecutionException | CancellationException e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+
+        this.activeWorker = worker;
+        this.activeControl = worker.control;
+        this.running.add(worker);
+        worker.execute();
+    }
+
+    /**
+     * Cancel the active solve, if there is one. Its listener will not be called.
+     */
+    public void cancel() {
+        if (this.activeWorker == null)
+            return;
+        this.activeControl.cancel();
+        this.activeWorker = null;
+        this.activeControl = null;
+    }
+
+    /**
+     * Cancel the active solve and wait until every cancelled solve has stopped searching, so the maze can be changed.
+     * Called on the event dispatch thread it is blocked until the searches reach their next checkpoint. A background
+     * thread may call it too once cancel has been called on the event dispatch thread.
+     */
+    public void cancelAndWait() {
+        this.cancel();
+        for (var worker : List.copyOf(this.running)) {
+            try {
+                worker.get();
+            } catch (InterruptedException | ExecutionException | CancellationException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public boolean isSolving() {
+        return this.activeWorker != null;
+    }
+}
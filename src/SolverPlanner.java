@@ -0,0 +1,80 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chooses the algorithm for a query from the statistics of the maze, so the user doesn't have to know which algorithm
+ * suits which maze. The rules are calibrated with Benchmark, the measurements behind each rule are noted with it.
+ */
+public class SolverPlanner {
+
+    // Above this many cycles per open cell there are many shortest paths, A* spreads over the ties between them while
+    // terrain A* follows one. Benchmark: very-braided-401 (0.20) terrain A* 469 us, A* 2,961 us; open-301 (0.90)
+    // 162 us and 809 us; rooms-301 (0.50) 547 us and 501 us; braided-401 (0.05) 1,104 us and 827 us
+    private static final double CYCLES_PER_CELL_FOR_TERRAIN = 0.1;
+    // A* keeps 4 ints and a byte per cell in its pooled workspace, plus the discovered order. Terrain A* allocates
+    // a long and a byte per cell for each query and keeps nothing. Benchmark: A* allocates 8-120 KB per query on
+    // top of its workspace, terrain A* 847 KB on open-301
+    private static final long ASTAR_BYTES_PER_CELL = 5 * Integer.BYTES + 1;
+
+    /**
+     * @param algorithm The chosen algorithm
+     * @param reasons   Why the algorithm was chosen, in the order the rules were applied
+     */
+    public record Plan(Algorithm algorithm, List<String> reasons) {
+
+        @Override
+        public String toString() {
+            return "chose " + this.algorithm + ": " + String.join("; ", this.reasons);
+        }
+    }
+
+    /**
+     * Choose the algorithm for the queries with the given options.
+     *
+     * Time complexity: O(1)
+     *
+     * @param statistics  The statistics of the maze
+     * @param perfectMaze true if the maze has a tree index
+     * @param weighted    true if the cells of the maze have costs
+     * @param options     Options of the query, only shortest paths are planned if it requires an optimal path
+     * @return The chosen algorithm and the reasons for choosing it
+     */
+    public static Plan plan(MazeStatistics statistics, boolean perfectMaze, boolean weighted, SolveOptions options) {
+        var reasons = new ArrayList<String>();
+        reasons.add(statistics.toString());
+
+        // Benchmark: perfect-401 tree path 493 us, the fastest search 1,548 us
+        if (perfectMaze) {
+            reasons.add("no cycles, the only path is read from the tree index");
+            return new Plan(Algorithm.TREE_PATH, reasons);
+        }
+
+        // Mostly white floor plans with expensive patches: terrain A* 7 ms, terrain Dijkstra 10 ms per query on an open
+        // 301x301 maze. With uniformly random costs the heuristic is weak and Dijkstra is 10-30% faster.
+        if (weighted) {
+            reasons.add("the cells have costs, only the terrain searches find the cheapest path");
+            return new Plan(Algorithm.TERRAIN_ASTAR, reasons);
+        }
+
+        // Benchmark: weighted A* 143-672 us on the generated mazes with cycles, the fastest optimal search 162-827 us
+        if (!options.requireOptimal()) {
+            reasons.add(String.format("any path is accepted, weighted A* (epsilon %.2f) expands the fewest cells",
+                    options.epsilon()));
+            return new Plan(Algorithm.WEIGHTED_ASTAR, reasons);
+        }
+
+        double cyclesPerCell = statistics.openCells() == 0 ? 0 : (double) statistics.cycles() / statistics.openCells();
+        if (cyclesPerCell >= CYCLES_PER_CELL_FOR_TERRAIN) {
+            reasons.add(String.format("%.2f cycles per open cell, terrain A* follows one of the many shortest paths",
+                    cyclesPerCell));
+            return new Plan(Algorithm.TERRAIN_ASTAR, reasons);
+        }
+        if (statistics.openCells() * ASTAR_BYTES_PER_CELL > Runtime.getRuntime().maxMemory() / 4) {
+            reasons.add("too large for the workspace of A*, terrain A* keeps no state between queries");
+            return new Plan(Algorithm.TERRAIN_ASTAR, reasons);
+        }
+        // Benchmark: hard24 A* 290 us, parallel BFS 359 us, bitboard BFS 542 us; med3-esc A* 29 us, terrain A* 144 us
+        reasons.add("few cycles, the heuristic leads A* along the corridors with the least detours");
+        return new Plan(Algorithm.ASTAR, reasons);
+    }
+}
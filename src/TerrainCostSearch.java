@@ -0,0 +1,139 @@
+import java.util.Arrays;
+
+/**
+ * Shortest paths when the cells cost different amounts to enter, like the gray levels of a scanned floor plan.
+ * The costs are stored as a byte per cell, 1 to 255, and the searches queue their cells in a RadixHeap, so a weighted
+ * search costs little more than the plain queue of a search where every cell costs 1.
+ * Without a cost grid every cell costs 1.
+ */
+public class TerrainCostSearch {
+
+    private static final long UNREACHED = Long.MAX_VALUE;
+    private static final byte NO_PARENT = -1;
+
+    private final Cell[][] maze;
+    private final byte[] costs;
+    private final int rows;
+    private final int cols;
+    private int minCost; // Cheapest cell, the manhattan distance times this never overestimates
+
+    /**
+     * @param maze  The maze to search
+     * @param costs Cost of entering every cell indexed by row * cols + col as an unsigned byte, or null for 1
+     */
+    public TerrainCostSearch(Cell[][] maze, byte[] costs) {
+        this.maze = maze;
+        this.costs = costs;
+        this.rows = maze.length;
+        this.cols = maze[0].length;
+        int min = 255;
+        for (int cell = 0; costs != null && cell < costs.length; cell++)
+            if (maze[cell / this.cols][cell % this.cols] != Cell.WALL)
+                min = Math.min(min, this.cost(cell));
+        this.minCost = costs == null ? 1 : min;
+    }
+
+    /**
+     * Take an opened cell into account, it may be cheaper than every other open cell. A cell turned into a wall
+     * keeps the cheapest cost as it is, which still never overestimates.
+     *
+     * Time complexity: O(1)
+     */
+    public void cellOpened(int cell) {
+        this.minCost = Math.min(this.minCost, this.cost(cell));
+    }
+
+    /**
+     * @return Cost of entering the cell, 1 to 255
+     */
+    public int cost(int cell) {
+        return this.costs == null ? 1 : Math.max(1, this.costs[cell] & 0xFF);
+    }
+
+    /**
+     * Find the cheapest path between two cells, with A* and the manhattan distance times the cheapest cell cost, or
+     * with Dijkstra. Every expanded cell is added to the trace as visited, followed by the path from the start to the
+     * goal. The cost of the path is set as the summary of the control.
+     *
+     * Time complexity: O(N), O(1) amortized per queued cell
+     * Where N is the number of open cells.
+     *
+     * @param start     Where to start in the maze
+     * @param goal      Where the goal is in the maze
+     * @param heuristic true for A*, false for Dijkstra
+     * @param control   Cancellation and budget of the search
+     * @return The steps of the search, partial if the search was stopped by the control
+     */
+    public TraceBuffer findPath(Coordinate start, Coordinate goal, boolean heuristic, SearchControl control) {
+        var trace = new TraceBuffer(this.rows, this.cols, false);
+        int startIndex = start.row() * this.cols + start.col();
+        int goalIndex = goal.row() * this.cols + goal.col();
+        var distance = new long[this.rows * this.cols];
+        Arrays.fill(distance, UNREACHED);
+        var parentDirection = new byte[this.rows * this.cols]; // Up, down, left or right to the parent
+        var open = new RadixHeap();
+        distance[startIndex] = 0;
+        parentDirection[startIndex] = NO_PARENT;
+        open.add(this.estimate(startIndex, goal, heuristic), startIndex);
+
+        while (!open.isEmpty()) {
+            int cell = open.poll();
+            long cost = distance[cell];
+            if (open.lastKey() != cost + this.estimate(cell, goal, heuristic))
+                continue; // Queued again with a lower cost, and already expanded with it
+            if (control.checkpoint())
+                return trace;
+            int row = cell / this.cols;
+            int col = cell % this.cols;
+            trace.add(row, col, Cell.VISITED);
+            if (cell == goalIndex) {
+                this.addPath(goalIndex, parentDirection, trace);
+                control.setSummary(String.format("path cost %,d", cost));
+                return trace;
+            }
+
+            for (int direction = 0; direction < 4; direction++) { // O(4)
+                int neighbourRow = row + (direction == 0 ? -1 : direction == 1 ? 1 : 0);
+                int neighbourCol = col + (direction == 2 ? -1 : direction == 3 ? 1 : 0);
+                if (neighbourRow < 0 || neighbourRow >= this.rows || neighbourCol < 0 || neighbourCol >= this.cols
+                        || this.maze[neighbourRow][neighbourCol] == Cell.WALL)
+                    continue;
+                int neighbour = neighbourRow * this.cols + neighbourCol;
+                long neighbourCost = cost + this.cost(neighbour);
+                if (neighbourCost >= distance[neighbour])
+                    continue;
+                distance[neighbour] = neighbourCost;
+                parentDirection[neighbour] = (byte) (direction ^ 1); // Opposite direction, back to the cell
+                open.add(neighbourCost + this.estimate(neighbour, goal, heuristic), neighbour);
+            }
+        }
+        return trace;
+    }
+
+    private long estimate(int cell, Coordinate goal, boolean heuristic) {
+        if (!heuristic)
+            return 0;
+        return (long) this.minCost
+                * (Math.abs(cell / this.cols - goal.row()) + Math.abs(cell % this.cols - goal.col()));
+    }
+
+    private void addPath(int goalIndex, byte[] parentDirection, TraceBuffer trace) {
+        var path = new int[16];
+        int length = 0;
+        for (int cell = goalIndex; ; ) { // O(p)
+            if (length == path.length)
+                path = Arrays.copyOf(path, length * 2);
+            path[length++] = cell;
+            if (parentDirection[cell] == NO_PARENT)
+                break;
+            cell += switch (parentDirection[cell]) {
+                case 0 -> -this.cols;
+                case 1 -> this.cols;
+                case 2 -> -1;
+                default -> 1;
+            };
+        }
+        for (int i = length - 1; i >= 0; i--)
+            trace.add(path[i] / this.cols, path[i] % this.cols, Cell.PATH);
+    }
+}
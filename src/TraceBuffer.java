@@ -0,0 +1,280 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * A compact, growable recording of the steps of a search.
+ * Every step is packed into one long, or two longs when the buffer is detailed:
+ * word 0: bits 0-31 cell index (row * cols + col), bits 32-39 Cell state, bit 40 set if the step has a parent.
+ * word 1: bits 32-63 parent cell index, bits 0-31 initial cost. Only stored when the buffer is detailed.
+ * This takes 8 or 16 bytes per step, compared to 80+ bytes for a MazeTraversalStep and its coordinates.
+ */
+public class TraceBuffer {
+
+    private static final int MAGIC = 0x4D5A5452; // "MZTR"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long HAS_PARENT = 1L << 40;
+    private static final Cell[] STATES = Cell.values();
+
+    private final int rows;
+    private final int cols;
+    private final int stride;
+    private long[] words;
+    private int size;
+
+    /**
+     * @param rows     Number of rows in the maze the trace belongs to
+     * @param cols     Number of columns in the maze the trace belongs to
+     * @param detailed Also store the parent and initial cost of every step
+     */
+    public TraceBuffer(int rows, int cols, boolean detailed) {
+        this(rows, cols, detailed ? 2 : 1, new long[INITIAL_CAPACITY * (detailed ? 2 : 1)], 0);
+    }
+
+    private TraceBuffer(int rows, int cols, int stride, long[] words, int size) {
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = stride;
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * Pack a queue of steps into a trace.
+     *
+     * Time complexity: O(n)
+     *
+     * @param steps    The steps to pack
+     * @param rows     Number of rows in the maze
+     * @param cols     Number of columns in the maze
+     * @param detailed Also store the parent and initial cost of every step
+     * @return The packed trace
+     */
+    public static TraceBuffer of(Collection<MazeTraversalStep> steps, int rows, int cols, boolean detailed) {
+        var trace = new TraceBuffer(rows, cols, detailed);
+        for (MazeTraversalStep step : steps)
+            trace.add(step);
+        return trace;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public boolean isDetailed() {
+        return this.stride == 2;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(MazeTraversalStep step) {
+        var location = step.getLocation();
+        var parent = step.getParentLocation();
+        this.add(location.row(), location.col(), step.getState(),
+                parent == null ? -1 : parent.row() * this.cols + parent.col(), step.getInitialCost());
+    }
+
+    public void add(int row, int col, Cell state) {
+        this.add(row, col, state, -1, 0);
+    }
+
+    /**
+     * Append a step to the trace.
+     *
+     * Time complexity: O(1) amortized
+     *
+     * @param row         Row of the cell
+     * @param col         Column of the cell
+     * @param state       State of the cell
+     * @param parentIndex Cell index of the parent, or -1 if the step has no parent
+     * @param cost        Initial cost of the step, only stored if the trace is detailed
+     */
+    public void add(int row, int col, Cell state, int parentIndex, int cost) {
+        int offset = this.size * this.stride;
+        if (offset + this.stride > this.words.length)
+            this.words = Arrays.copyOf(this.words, this.words.length * 2);
+
+        this.words[offset] = (row * (long) this.cols + col) & 0xFFFFFFFFL
+                | (long) state.ordinal() << 32
+                | (parentIndex >= 0 ? HAS_PARENT : 0);
+        if (this.stride == 2)
+            this.words[offset + 1] = (long) parentIndex << 32 | (cost & 0xFFFFFFFFL);
+        this.size++;
+    }
+
+    public int getIndex(int step) {
+        return (int) this.words[step * this.stride];
+    }
+
+    public int getRow(int step) {
+        return this.getIndex(step) / this.cols;
+    }
+
+    public int getCol(int step) {
+        return this.getIndex(step) % this.cols;
+    }
+
+    public Cell getState(int step) {
+        return STATES[(int) (this.words[step * this.stride] >>> 32) & 0xFF];
+    }
+
+    public boolean hasParent(int step) {
+        return (this.words[step * this.stride] & HAS_PARENT) != 0;
+    }
+
+    /**
+     * @return The cell index of the parent, or -1 if the step has no parent or the trace is not detailed
+     */
+    public int getParentIndex(int step) {
+        return this.stride == 2 ? (int) (this.words[step * this.stride + 1] >> 32) : -1;
+    }
+
+    public int getCost(int step) {
+        return this.stride == 2 ? (int) this.words[step * this.stride + 1] : 0;
+    }
+
+    /**
+     * @return Bytes used by the packed steps
+     */
+    public long memoryBytes() {
+        return (long) this.words.length * Long.BYTES;
+    }
+
+    /**
+     * The cells of the path in the trace, in order from the start to the goal. The searches mark the path in
+     * different orders, from either end, in the order the cells were expanded or with the ends of segments repeated,
+     * so the path is found again with a breadth first search through the marked cells.
+     *
+     * Time complexity: O(n) where n is the number of steps
+     *
+     * @return The cell indexes of the path, empty if the search stopped before reaching the goal
+     */
+    public int[] getPath(Coordinate start, Coordinate goal) {
+        var previous = new HashMap<Integer, Integer>(); // Marked cell to the cell it was reached from, -1 if unreached
+        for (int i = 0; i < this.size; i++)
+            if (this.getState(i) == Cell.PATH)
+                previous.put(this.getIndex(i), -1);
+
+        int startIndex = start.row() * this.cols + start.col();
+        int goalIndex = goal.row() * this.cols + goal.col();
+        if (!previous.containsKey(startIndex) || !previous.containsKey(goalIndex))
+            return new int[0];
+        var queue = new ArrayDeque<Integer>();
+        queue.add(startIndex);
+        previous.put(startIndex, startIndex);
+        while (!queue.isEmpty() && previous.get(goalIndex) < 0) {
+            int cell = queue.poll();
+            for (int neighbour : new int[]{cell - this.cols, cell + this.cols, cell % this.cols > 0 ? cell - 1 : -1,
+                    cell % this.cols < this.cols - 1 ? cell + 1 : -1}) {
+                if (previous.getOrDefault(neighbour, 0) < 0) {
+                    previous.put(neighbour, cell);
+                    queue.add(neighbour);
+                }
+            }
+        }
+        if (previous.get(goalIndex) < 0)
+            return new int[0];
+
+        int length = 1;
+        for (int cell = goalIndex; cell != startIndex; cell = previous.get(cell))
+            length++;
+        var path = new int[length];
+        for (int cell = goalIndex; length > 0; cell = previous.get(cell))
+            path[--length] = cell;
+        return path;
+    }
+
+    /**
+     * Unpack the trace into MazeTraversalStep objects. Steps of a detailed trace get their step number, parent and
+     * initial cost, the heuristics cost is not recorded.
+     *
+     * Time complexity: O(n)
+     *
+     * @return The steps of the trace, in order
+     */
+    public Queue<MazeTraversalStep> toSteps() {
+        Queue<MazeTraversalStep> steps = new ArrayDeque<>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            var location = new Coordinate(this.getRow(i), this.getCol(i));
+            int parentIndex = this.getParentIndex(i);
+            if (this.stride == 2)
+                steps.add(new MazeTraversalStep(i, location,
+                        parentIndex < 0 ? null : new Coordinate(parentIndex / this.cols, parentIndex % this.cols),
+                        this.getCost(i), 0, this.getState(i)));
+            else
+                steps.add(new MazeTraversalStep(location, this.getState(i)));
+        }
+        return steps;
+    }
+
+    /**
+     * Write the trace to a file.
+     *
+     * Time complexity: O(n)
+     *
+     * @param file The file to write to
+     * @throws IOException If the file could not be written
+     */
+    public void writeTo(File file) throws IOException {
+        try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.rows);
+            out.writeInt(this.cols);
+            out.writeInt(this.stride);
+            out.writeInt(this.size);
+            for (int i = 0; i < this.size * this.stride; i++)
+                out.writeLong(this.words[i]);
+        }
+    }
+
+    /**
+     * Read a trace written by writeTo. The header is checked against the length of the file and every step against
+     * the size of the maze, so a corrupt or truncated file is reported instead of read.
+     *
+     * Time complexity: O(n)
+     *
+     * @param file The file to read from
+     * @return The trace in the file
+     * @throws IOException If the file could not be read or is not a trace
+     */
+    public static TraceBuffer readFrom(File file) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Not a maze trace: " + file);
+            int rows = in.readInt();
+            int cols = in.readInt();
+            int stride = in.readInt();
+            int size = in.readInt();
+            long cells = (long) rows * cols;
+            long wordCount = (long) size * stride;
+            if (rows < 1 || cols < 1 || cells > Integer.MAX_VALUE || stride < 1 || stride > 2 || size < 0
+                    || wordCount > Integer.MAX_VALUE - 8 || file.length() != HEADER_BYTES + wordCount * Long.BYTES)
+                throw new IOException("Corrupt maze trace: " + file);
+
+            var words = new long[(int) Math.max(wordCount, stride)];
+            for (int i = 0; i < wordCount; i++) {
+                words[i] = in.readLong();
+                if (i % stride == 0) {
+                    long index = words[i] & 0xFFFFFFFFL;
+                    int state = (int) (words[i] >>> 32) & 0xFF;
+                    if (index >= cells || state >= STATES.length)
+                        throw new IOException("Corrupt maze trace, step " + i / stride + " is invalid: " + file);
+                } else {
+                    long parentIndex = words[i] >> 32;
+                    if (parentIndex < -1 || parentIndex >= cells)
+                        throw new IOException("Corrupt maze trace, step " + i / stride + " has an invalid parent: "
+                                + file);
+                }
+            }
+            return new TraceBuffer(rows, cols, stride, words, size);
+        }
+    }
+}
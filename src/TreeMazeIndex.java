@@ -0,0 +1,181 @@
+import java.util.Arrays;
+
+/**
+ * Path index for perfect mazes, where the open cells form a tree and there is exactly one path between two cells.
+ * The tree is rooted once, after which a query only has to find the lowest common ancestor (LCA) of start and goal
+ * and walk both cells up to it, no search is needed.
+ * The LCA is found with jump pointers: besides its parent every cell stores one ancestor further up, chosen so that
+ * any ancestor can be reached in O(log n) jumps. This gives the query time of binary lifting with O(n) memory.
+ */
+public class TreeMazeIndex {
+
+    private static final int NONE = -1;
+
+    private final int rows;
+    private final int cols;
+    private final int[] parent;
+    private final int[] depth;
+    private final int[] jump;
+
+    private TreeMazeIndex(int rows, int cols, int[] parent, int[] depth, int[] jump) {
+        this.rows = rows;
+        this.cols = cols;
+        this.parent = parent;
+        this.depth = depth;
+        this.jump = jump;
+    }
+
+    /**
+     * Build the index if the maze is a perfect maze: the open cells are connected and there is one edge less than
+     * there are open cells.
+     *
+     * Time complexity: O(nm)
+     * Where n is the height of the maze and m is the width of the maze.
+     *
+     * @param maze The maze to index
+     * @return The index, or null if the maze is not a tree
+     */
+    public static TreeMazeIndex build(Cell[][] maze) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        long nodes = 0;
+        long edges = 0;
+        int root = NONE;
+        for (int row = 0; row < rows; row++) { // O(nm)
+            for (int col = 0; col < cols; col++) {
+                if (maze[row][col] == Cell.WALL)
+                    continue;
+                nodes++;
+                if (root == NONE)
+                    root = row * cols + col;
+                if (row + 1 < rows && maze[row + 1][col] != Cell.WALL)
+                    edges++;
+                if (col + 1 < cols && maze[row][col + 1] != Cell.WALL)
+                    edges++;
+            }
+        }
+        if (root == NONE || edges != nodes - 1)
+            return null;
+
+        var parent = new int[rows * cols];
+        var depth = new int[rows * cols];
+        var jump = new int[rows * cols];
+        Arrays.fill(parent, NONE);
+        parent[root] = root;
+        jump[root] = root;
+
+        // Iterative depth first search, a recursive one would overflow the stack on long corridors
+        var stack = new int[(int) nodes];
+        int top = 0;
+        long visited = 1;
+        stack[top++] = root;
+        int[] rowOffsets = {-1, 1, 0, 0};
+        int[] colOffsets = {0, 0, -1, 1};
+        while (top > 0) { // O(nm)
+            int current = stack[--top];
+            int row = current / cols;
+            int col = current % cols;
+            for (int i = 0; i < 4; i++) {
+                int neighbourRow = row + rowOffsets[i];
+                int neighbourCol = col + colOffsets[i];
+                if (neighbourRow < 0 || neighbourRow >= rows || neighbourCol < 0 || neighbourCol >= cols
+                        || maze[neighbourRow][neighbourCol] == Cell.WALL)
+                    continue;
+                int neighbour = neighbourRow * cols + neighbourCol;
+                if (parent[neighbour] != NONE)
+                    continue;
+                parent[neighbour] = current;
+                depth[neighbour] = depth[current] + 1;
+                // Jump twice as far as the parent when the parent's two jumps are equally long
+                int parentJump = jump[current];
+                jump[neighbour] = depth[current] - depth[parentJump] == depth[parentJump] - depth[jump[parentJump]]
+                        ? jump[parentJump] : current;
+                stack[top++] = neighbour;
+                visited++;
+            }
+        }
+        if (visited != nodes) // Not connected
+            return null;
+
+        return new TreeMazeIndex(rows, cols, parent, depth, jump);
+    }
+
+    /**
+     * Find the only path between two cells.
+     *
+     * Time complexity: O(log n + p)
+     * Where n is the number of open cells and p is the length of the path.
+     *
+     * @param start   Where to start in the maze
+     * @param goal    Where the goal is in the maze
+     * @param control Cancellation of the query, one node is counted per path cell
+     * @return The cells of the path, in order from start to goal
+     */
+    public TraceBuffer findPath(Coordinate start, Coordinate goal, SearchControl control) {
+        var trace = new TraceBuffer(this.rows, this.cols, false);
+        int startIndex = start.row() * this.cols + start.col();
+        int goalIndex = goal.row() * this.cols + goal.col();
+        if (this.parent[startIndex] == NONE || this.parent[goalIndex] == NONE)
+            return trace; // Start or goal is a wall
+        int ancestor = this.lowestCommonAncestor(startIndex, goalIndex);
+
+        // Walk up from the start, then down to the goal, which is the walk up from the goal in reverse
+        int previous = NONE;
+        for (int cell = startIndex; cell != ancestor; cell = this.parent[cell]) {
+            if (control.checkpoint())
+                return trace;
+            this.addPathStep(trace, cell, previous);
+            previous = cell;
+        }
+        this.addPathStep(trace, ancestor, previous);
+        previous = ancestor;
+
+        var descent = new int[this.depth[goalIndex] - this.depth[ancestor]];
+        int length = 0;
+        for (int cell = goalIndex; cell != ancestor; cell = this.parent[cell])
+            descent[length++] = cell;
+        for (int i = length - 1; i >= 0; i--) {
+            if (control.checkpoint())
+                return trace;
+            this.addPathStep(trace, descent[i], previous);
+            previous = descent[i];
+        }
+        return trace;
+    }
+
+    /**
+     * @return Bytes used by the index
+     */
+    public long memoryBytes() {
+        return 3L * this.parent.length * Integer.BYTES;
+    }
+
+    /**
+     * Time complexity: O(log n)
+     */
+    private int lowestCommonAncestor(int first, int second) {
+        if (this.depth[first] < this.depth[second]) {
+            int temp = first;
+            first = second;
+            second = temp;
+        }
+        // Move the deeper cell up to the depth of the other cell
+        while (this.depth[first] > this.depth[second])
+            first = this.depth[this.jump[first]] >= this.depth[second] ? this.jump[first] : this.parent[first];
+        // Move both cells up until they meet, jumping whenever they would not pass the ancestor
+        while (first != second) {
+            if (this.jump[first] != this.jump[second]) {
+                first = this.jump[first];
+                second = this.jump[second];
+            } else {
+                first = this.parent[first];
+                second = this.parent[second];
+            }
+        }
+        return first;
+    }
+
+    private void addPathStep(TraceBuffer trace, int cell, int previous) {
+        trace.add(cell / this.cols, cell % this.cols, Cell.PATH, previous, 0);
+    }
+}